@@ -30,7 +30,7 @@ public class MetaTestController {
             @RequestParam(defaultValue = "Hello from Meta WhatsApp!") String message) {
 
         try {
-            metaWhatsAppService.sendTextMessage(to, message);
+            metaWhatsAppService.sendTextMessage(to, message).join();
 
             Map<String, String> response = new HashMap<>();
             response.put("status", "success");
@@ -55,7 +55,7 @@ public class MetaTestController {
             metaWhatsAppService.sendMessageWithButtons(
                     to,
                     "Please choose one of the following options:",
-                    Arrays.asList("Option 1", "Option 2", "Option 3"));
+                    Arrays.asList("Option 1", "Option 2", "Option 3")).join();
 
             Map<String, String> response = new HashMap<>();
             response.put("status", "success");
@@ -86,7 +86,7 @@ public class MetaTestController {
                     to,
                     "Available Subjects",
                     "Choose a subject you'd like to learn:",
-                    options);
+                    options).join();
 
             Map<String, String> response = new HashMap<>();
             response.put("status", "success");
@@ -1,8 +1,11 @@
 package com.example.demo.controller;
 
-import com.example.demo.service.ConversationService;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.demo.dto.InboundMessage;
+import com.example.demo.dto.StatusUpdate;
+import com.example.demo.dto.WebhookEvents;
+import com.example.demo.service.InboundMessageDispatcher;
+import com.example.demo.service.MessageDeduplicationService;
+import com.example.demo.service.WebhookPayloadParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,7 +13,6 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Map;
 
 /**
  * Webhook controller for receiving WhatsApp messages from Meta's WhatsApp
@@ -24,12 +26,16 @@ public class MetaWebhookController {
     private static final Logger logger = LoggerFactory.getLogger(MetaWebhookController.class);
 
     @Autowired
-    private ConversationService conversationService;
+    private InboundMessageDispatcher inboundMessageDispatcher;
+
+    @Autowired
+    private MessageDeduplicationService deduplicationService;
 
     @Value("${meta.webhook.verify.token}")
     private String verifyToken;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private WebhookPayloadParser payloadParser;
 
     /**
      * Webhook verification endpoint (GET request)
@@ -108,36 +114,33 @@ public class MetaWebhookController {
      * }
      */
     @PostMapping
-    public ResponseEntity<String> handleIncomingMessage(@RequestBody String payload) {
+    public ResponseEntity<String> handleIncomingMessage(@RequestBody byte[] payload) {
         try {
-            logger.info("Received webhook from Meta: {}", payload);
+            // Message bodies may be passwords, so only the size is logged
+            logger.debug("Received webhook from Meta: {} bytes", payload.length);
 
-            JsonNode rootNode = objectMapper.readTree(payload);
+            WebhookEvents events = payloadParser.parse(payload);
 
             // Check if this is a WhatsApp Business Account event
-            String object = rootNode.path("object").asText();
-            if (!"whatsapp_business_account".equals(object)) {
+            if (!"whatsapp_business_account".equals(events.object())) {
                 logger.warn("Received non-WhatsApp event, ignoring");
                 return ResponseEntity.ok("OK");
             }
 
-            // Process each entry
-            JsonNode entries = rootNode.path("entry");
-            for (JsonNode entry : entries) {
-                JsonNode changes = entry.path("changes");
-
-                for (JsonNode change : changes) {
-                    String field = change.path("field").asText();
-
-                    // Only process message events
-                    if ("messages".equals(field)) {
-                        JsonNode value = change.path("value");
-                        processMessageEvent(value);
-                    } else if ("message_status".equals(field)) {
-                        // Handle message status updates (sent, delivered, read, failed)
-                        logger.debug("Received message status update");
-                    }
-                }
+            // Process each message
+            boolean accepted = true;
+            for (InboundMessage message : events.messages()) {
+                accepted &= processMessageEvent(message);
+            }
+
+            // Handle message status updates (sent, delivered, read, failed)
+            for (StatusUpdate status : events.statuses()) {
+                logger.debug("Message {} to {} is {}", status.messageId(), status.recipientId(), status.status());
+            }
+
+            if (!accepted) {
+                // Inbound lanes are saturated - ask Meta to redeliver later
+                return ResponseEntity.status(503).body("Busy");
             }
 
             // Meta expects 200 OK response
@@ -151,102 +154,42 @@ public class MetaWebhookController {
     }
 
     /**
-     * Process individual message events
+     * Process an individual message event
+     * The message is queued for asynchronous processing; returns false if it
+     * could not be queued
      */
-    private void processMessageEvent(JsonNode value) {
-        try {
-            JsonNode metadata = value.path("metadata");
-            String phoneNumberId = metadata.path("phone_number_id").asText();
+    private boolean processMessageEvent(InboundMessage message) {
+        String from = message.from();
+        if (from == null) {
+            logger.warn("Message {} has no sender, ignoring", message.id());
+            return true;
+        }
 
-            JsonNode contacts = value.path("contacts");
-            JsonNode messages = value.path("messages");
+        // Drop Meta redeliveries before doing any work
+        if (!deduplicationService.firstSighting(message.id())) {
+            logger.info("Duplicate message {} from {} ignored", message.id(), from);
+            return true;
+        }
 
-            // Process each message
-            for (JsonNode message : messages) {
-                String from = message.path("from").asText(); // Sender's phone number
-                String messageId = message.path("id").asText();
-                String timestamp = message.path("timestamp").asText();
-                String messageType = message.path("type").asText();
-
-                String messageText = null;
-
-                // Extract message content based on type
-                switch (messageType) {
-                    case "text":
-                        messageText = message.path("text").path("body").asText();
-                        break;
-
-                    case "interactive":
-                        // Handle interactive message responses (button clicks, list selections)
-                        JsonNode interactive = message.path("interactive");
-                        String interactiveType = interactive.path("type").asText();
-
-                        if ("button_reply".equals(interactiveType)) {
-                            // User clicked a button
-                            String buttonId = interactive.path("button_reply").path("id").asText();
-                            String buttonTitle = interactive.path("button_reply").path("title").asText();
-                            messageText = buttonTitle; // Use button title as message
-                            logger.info("Button clicked - ID: {}, Title: {}", buttonId, buttonTitle);
-
-                        } else if ("list_reply".equals(interactiveType)) {
-                            // User selected from a list
-                            String listId = interactive.path("list_reply").path("id").asText();
-                            String listTitle = interactive.path("list_reply").path("title").asText();
-                            messageText = listTitle; // Use list option title as message
-                            logger.info("List option selected - ID: {}, Title: {}", listId, listTitle);
-                        }
-                        break;
-
-                    case "button":
-                        // Handle quick reply button responses
-                        messageText = message.path("button").path("text").asText();
-                        break;
-
-                    case "image":
-                        logger.info("Received image message from {}", from);
-                        messageText = "[Image received]";
-                        break;
-
-                    case "document":
-                        logger.info("Received document message from {}", from);
-                        messageText = "[Document received]";
-                        break;
-
-                    case "audio":
-                        logger.info("Received audio message from {}", from);
-                        messageText = "[Audio received]";
-                        break;
-
-                    case "video":
-                        logger.info("Received video message from {}", from);
-                        messageText = "[Video received]";
-                        break;
-
-                    case "location":
-                        logger.info("Received location message from {}", from);
-                        messageText = "[Location received]";
-                        break;
-
-                    default:
-                        logger.warn("Unsupported message type: {}", messageType);
-                        messageText = "[Unsupported message type]";
-                }
-
-                if (messageText != null && !messageText.isEmpty()) {
-                    logger.info("Processing message from {}: {}", from, messageText);
-
-                    // Remove any + prefix from phone number
-                    String phoneNumber = from.replace("+", "");
-
-                    // Process the message through the conversation service
-                    conversationService.processMessage(phoneNumber, messageText);
-                } else {
-                    logger.warn("No message text extracted from message type: {}", messageType);
-                }
-            }
+        if (message.replyId() != null) {
+            logger.info("Interactive reply from {} - ID: {}, Title: {}", from, message.replyId(), message.text());
+        } else if (!"text".equals(message.type())) {
+            logger.info("Received {} message from {}", message.type(), from);
+        }
 
-        } catch (Exception e) {
-            logger.error("Error processing message event: {}", e.getMessage(), e);
+        String messageText = message.text();
+        if (messageText == null || messageText.isEmpty()) {
+            logger.warn("No message text extracted from message type: {}", message.type());
+            return true;
         }
+
+        // The text is not logged: it may be a password; ConversationService logs it masked
+        logger.info("Queueing message {} from {}", message.id(), from);
+
+        // Remove any + prefix from phone number
+        String phoneNumber = from.replace("+", "");
+
+        // Queue the message on the sender's lane
+        return inboundMessageDispatcher.dispatch(message.id(), phoneNumber, messageText, message.replyId());
     }
 }
@@ -0,0 +1,77 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.PaymentCallback;
+import com.example.demo.service.PaymentEventReconciler;
+import com.example.demo.service.PaymentGatewaySignature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Webhook controller for payment gateway callbacks
+ * Verifies the signature, records the event and returns; the payment is
+ * updated asynchronously by PaymentEventReconciler
+ */
+@RestController
+@RequestMapping("/payments/webhook")
+public class PaymentWebhookController {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentWebhookController.class);
+
+    @Autowired
+    private PaymentGatewaySignature signature;
+
+    @Autowired
+    private PaymentEventReconciler reconciler;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Callback endpoint (POST request)
+     * The gateway retries until it gets a 2xx, so a redelivered event is
+     * acknowledged without being applied again
+     */
+    @PostMapping
+    public ResponseEntity<String> handleCallback(
+            @RequestBody byte[] payload,
+            @RequestHeader(value = PaymentGatewaySignature.HEADER, required = false) String signatureHeader) {
+
+        if (!signature.verify(payload, signatureHeader)) {
+            logger.warn("Payment callback rejected - invalid signature");
+            return ResponseEntity.status(401).body("Invalid signature");
+        }
+
+        PaymentCallback callback;
+        try {
+            callback = objectMapper.readValue(payload, PaymentCallback.class);
+        } catch (IOException e) {
+            logger.warn("Payment callback rejected - unreadable payload: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Invalid payload");
+        }
+        if (callback.eventId() == null || callback.type() == null) {
+            logger.warn("Payment callback rejected - missing event id or type");
+            return ResponseEntity.badRequest().body("Invalid payload");
+        }
+
+        try {
+            if (reconciler.accept(callback)) {
+                logger.info("Payment event {} ({}) received for {}", callback.eventId(), callback.type(),
+                        callback.paymentReference());
+            } else {
+                logger.info("Duplicate payment event {} ignored", callback.eventId());
+            }
+            return ResponseEntity.ok("OK");
+
+        } catch (Exception e) {
+            // Not recorded - let the gateway redeliver
+            logger.error("Error recording payment event {}: {}", callback.eventId(), e.getMessage(), e);
+            return ResponseEntity.status(500).body("Error");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.PaymentCallback;
+import com.example.demo.entity.Payment;
+import com.example.demo.repository.PaymentRepository;
+import com.example.demo.service.IdGenerator;
+import com.example.demo.service.PaymentGatewaySignature;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Local stand-in for the payment gateway, for development and testing
+ * Point payments.gateway.pay-url here and opening a payment link "pays" it:
+ * a signed callback is posted to our own webhook, as the real gateway would
+ * Enable with payments.gateway.stub.enabled=true; never in production
+ */
+@RestController
+@RequestMapping("/stub-gateway")
+@ConditionalOnProperty(name = "payments.gateway.stub.enabled", havingValue = "true")
+public class StubPaymentGatewayController {
+
+    private static final Logger logger = LoggerFactory.getLogger(StubPaymentGatewayController.class);
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentGatewaySignature signature;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${payments.gateway.stub.callback-url}")
+    private String callbackUrl;
+
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    /**
+     * Pay a pending payment
+     * GET /stub-gateway/pay/PAY-0A8HDZHS00XZW?deliveries=2
+     * deliveries > 1 posts the same event again, like a gateway retry
+     */
+    @GetMapping("/pay/{reference}")
+    public ResponseEntity<Map<String, Object>> pay(
+            @PathVariable String reference,
+            @RequestParam(defaultValue = "1") int deliveries) throws JsonProcessingException {
+
+        Payment payment = paymentRepository.findByPaymentReference(reference).orElse(null);
+        if (payment == null) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", "Unknown payment reference " + reference);
+            return ResponseEntity.status(404).body(response);
+        }
+
+        PaymentCallback callback = new PaymentCallback("evt_" + idGenerator.nextToken(),
+                PaymentCallback.PAYMENT_SUCCEEDED, reference, "txn_" + idGenerator.nextToken(),
+                payment.getTotalAmount());
+        byte[] payload = objectMapper.writeValueAsBytes(callback);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(PaymentGatewaySignature.HEADER, signature.sign(payload));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("eventId", callback.eventId());
+        for (int i = 1; i <= Math.max(deliveries, 1); i++) {
+            int status;
+            try {
+                status = restTemplate.postForEntity(callbackUrl, new HttpEntity<>(payload, headers), String.class)
+                        .getStatusCodeValue();
+            } catch (HttpStatusCodeException e) {
+                status = e.getRawStatusCode();
+            }
+            logger.info("Stub gateway delivered event {} for {} (delivery {}): HTTP {}",
+                    callback.eventId(), reference, i, status);
+            response.put("delivery" + i, status);
+        }
+        response.put("status", "success");
+        return ResponseEntity.ok(response);
+    }
+}
@@ -24,7 +24,7 @@ public class WhatsAppTestController {
                 return ResponseEntity.badRequest().body(Map.of("error", "Missing 'to' or 'message' field"));
             }
 
-            metaWhatsAppService.sendTextMessage(to, message);
+            metaWhatsAppService.sendTextMessage(to, message).join();
 
             return ResponseEntity.ok(Map.of(
                     "status", "success",
@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+/**
+ * Outcome of one run of a scheduled batch job.
+ *
+ * @param skipped items that needed nothing, e.g. a reminder another instance already sent
+ * @param p50Ms   per-item latency percentiles, in milliseconds
+ */
+public record BatchSummary(String job, int succeeded, int skipped, int failed,
+        double p50Ms, double p95Ms, double p99Ms, long elapsedMs) {
+
+    public int total() {
+        return succeeded + skipped + failed;
+    }
+}
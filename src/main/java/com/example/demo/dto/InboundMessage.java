@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+/**
+ * A single inbound WhatsApp message from a Meta webhook payload.
+ *
+ * @param id        Meta's message id, used for deduplication
+ * @param from      sender's phone number
+ * @param timestamp Unix timestamp as sent by Meta
+ * @param type      text, interactive, button, image, ...
+ * @param text      message text; the reply title for interactive messages and a
+ *                  placeholder such as "[Image received]" for media
+ * @param replyId   id of the tapped button or list row, null for typed messages
+ */
+public record InboundMessage(String id, String from, String timestamp, String type, String text, String replyId) {
+}
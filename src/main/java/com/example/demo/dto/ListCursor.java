@@ -0,0 +1,33 @@
+package com.example.demo.dto;
+
+/**
+ * Position in a paged list shown in a conversation, stored on UserSession
+ * between messages. For keyset pages, key and id are the sort key and id of
+ * the last row shown; for offset pages, key is the offset.
+ *
+ * @param kind which list the cursor belongs to, e.g. "tutors" or "upcoming"
+ */
+public record ListCursor(String kind, String key, long id) {
+
+    public String encode() {
+        return kind + "|" + key + "|" + id;
+    }
+
+    /**
+     * Parse an encoded cursor, or null if it is missing, malformed or for another list
+     */
+    public static ListCursor parse(String value, String expectedKind) {
+        if (value == null) {
+            return null;
+        }
+        String[] parts = value.split("\\|", 3);
+        if (parts.length != 3 || !parts[0].equals(expectedKind)) {
+            return null;
+        }
+        try {
+            return new ListCursor(parts[0], parts[1], Long.parseLong(parts[2]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.dto;
+
+/**
+ * Outcome of checking a password against the stored value.
+ *
+ * @param upgradedHash a fresh hash to store in place of the old value, or null
+ *                     when the stored value is already current; only set on a match
+ */
+public record PasswordCheck(boolean matches, String upgradedHash) {
+
+    public static PasswordCheck mismatch() {
+        return new PasswordCheck(false, null);
+    }
+
+    public boolean needsUpgrade() {
+        return upgradedHash != null;
+    }
+}
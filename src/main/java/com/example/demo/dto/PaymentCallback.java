@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+/**
+ * Callback body posted by the payment gateway, e.g.
+ * {"id": "evt_123", "type": "payment.succeeded", "paymentReference": "PAY-...",
+ * "transactionReference": "txn_456", "amount": 250.00}
+ */
+public record PaymentCallback(
+        @JsonProperty("id") String eventId,
+        String type,
+        String paymentReference,
+        String transactionReference,
+        BigDecimal amount) {
+
+    public static final String PAYMENT_SUCCEEDED = "payment.succeeded";
+}
@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The fields a payment reminder needs, for an unpaid payment.
+ * Built directly by a JPQL constructor expression, so the reminder job does
+ * not load Payment, TutoringSession, User or Subject entities.
+ */
+public record PaymentReminder(Long paymentId, String studentPhoneNumber, BigDecimal totalAmount,
+        String subjectName, String tutorName, LocalDateTime sessionDateTime,
+        String paymentReference, String paymentLink) {
+}
@@ -0,0 +1,7 @@
+package com.example.demo.dto;
+
+/**
+ * Delivery status update (sent, delivered, read, failed) for a message we sent.
+ */
+public record StatusUpdate(String messageId, String recipientId, String status, String timestamp) {
+}
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * A tutor offering a subject, as listed to a student choosing a tutor.
+ * Built directly by a JPQL constructor expression, so listing tutors does not
+ * load TutorSubject or User entities.
+ *
+ * @param ratingCount null when the tutor has not been rated
+ * @param ratingSum   null when the tutor has not been rated
+ */
+public record TutorCandidate(Long tutorId, String fullName, BigDecimal hourlyRate, String qualifications,
+        Integer ratingCount, Integer ratingSum) {
+
+    /**
+     * Average stars, or null if the tutor has not been rated
+     */
+    public Double averageRating() {
+        return ratingCount != null && ratingCount > 0 && ratingSum != null
+                ? (double) ratingSum / ratingCount
+                : null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * One tutor's paid earnings for a month and up to the end of it.
+ * Built by a single GROUP BY over payments, for the monthly summary job.
+ *
+ * @param monthSessions paid sessions in the month
+ */
+public record TutorEarningsSummary(Long tutorId, String phoneNumber, BigDecimal monthEarnings,
+        Long monthSessions, BigDecimal lifetimeEarnings) {
+}
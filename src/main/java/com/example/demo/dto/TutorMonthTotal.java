@@ -0,0 +1,10 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Paid earnings for one tutor in one calendar month, derived from payments.
+ * Used to reconcile the earnings ledger.
+ */
+public record TutorMonthTotal(Long tutorId, Integer year, Integer month, BigDecimal earnings, Long paidSessions) {
+}
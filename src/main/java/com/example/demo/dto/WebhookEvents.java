@@ -0,0 +1,11 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * Typed events extracted from one Meta webhook payload.
+ *
+ * @param object the payload's "object" field, "whatsapp_business_account" for WhatsApp events
+ */
+public record WebhookEvents(String object, List<InboundMessage> messages, List<StatusUpdate> statuses) {
+}
@@ -0,0 +1,122 @@
+package com.example.demo.entity;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one run of a resumable batch job, e.g. the earnings summary
+ * for a given month. lastKey is the highest key handled so far; it is
+ * advanced in the same transaction as the work for each chunk, so a run
+ * that stops part-way resumes after the last committed chunk.
+ */
+@Entity
+@Table(name = "batch_job_checkpoints")
+public class BatchJobCheckpoint {
+
+    @Id
+    @Column(length = 100)
+    private String runKey;
+
+    @Column(nullable = false)
+    private Long lastKey;
+
+    @Column(nullable = false)
+    private Integer processed;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column
+    private LocalDateTime completedAt;
+
+    // Stops two instances from committing the same chunk
+    @Version
+    private long version;
+
+    // Constructors
+    public BatchJobCheckpoint() {
+    }
+
+    public BatchJobCheckpoint(String runKey) {
+        this.runKey = runKey;
+        this.lastKey = 0L;
+        this.processed = 0;
+        this.startedAt = LocalDateTime.now();
+        this.updatedAt = this.startedAt;
+    }
+
+    public void advance(Long lastKey, int count) {
+        this.lastKey = lastKey;
+        this.processed += count;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void complete() {
+        this.completedAt = LocalDateTime.now();
+        this.updatedAt = this.completedAt;
+    }
+
+    public boolean isCompleted() {
+        return completedAt != null;
+    }
+
+    // Getters and Setters
+    public String getRunKey() {
+        return runKey;
+    }
+
+    public void setRunKey(String runKey) {
+        this.runKey = runKey;
+    }
+
+    public Long getLastKey() {
+        return lastKey;
+    }
+
+    public void setLastKey(Long lastKey) {
+        this.lastKey = lastKey;
+    }
+
+    public Integer getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(Integer processed) {
+        this.processed = processed;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
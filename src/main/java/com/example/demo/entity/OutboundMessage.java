@@ -0,0 +1,162 @@
+package com.example.demo.entity;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Outbox row for a WhatsApp message waiting to be delivered to Meta.
+ * Rows survive restarts and are drained in id order by OutboundMessageDispatcher.
+ */
+@Entity
+@Table(name = "outbound_messages", indexes = {
+        @Index(name = "idx_outbound_messages_status", columnList = "status, id"),
+        @Index(name = "idx_outbound_messages_recipient", columnList = "recipient, id"),
+        @Index(name = "idx_outbound_messages_claim_token", columnList = "claimToken")
+})
+public class OutboundMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false, length = 16000)
+    private String payload; // Graph API request body (JSON)
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private OutboundStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column
+    private String claimToken; // Set while a dispatcher batch owns the row
+
+    @Column
+    private LocalDateTime claimedAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime sentAt;
+
+    public enum OutboundStatus {
+        PENDING,        // Waiting to be sent (or retried)
+        SENDING,        // Claimed by a dispatcher batch
+        SENT,           // Accepted by Meta
+        FAILED          // Gave up after a non-retryable error or too many attempts
+    }
+
+    // Constructors
+    public OutboundMessage() {
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+        this.status = OutboundStatus.PENDING;
+        this.attempts = 0;
+    }
+
+    public OutboundMessage(String recipient, String payload) {
+        this();
+        this.recipient = recipient;
+        this.payload = payload;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public void setRecipient(String recipient) {
+        this.recipient = recipient;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public OutboundStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OutboundStatus status) {
+        this.status = status;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getClaimToken() {
+        return claimToken;
+    }
+
+    public void setClaimToken(String claimToken) {
+        this.claimToken = claimToken;
+    }
+
+    public LocalDateTime getClaimedAt() {
+        return claimedAt;
+    }
+
+    public void setClaimedAt(LocalDateTime claimedAt) {
+        this.claimedAt = claimedAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(LocalDateTime sentAt) {
+        this.sentAt = sentAt;
+    }
+}
@@ -5,7 +5,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = @Index(name = "idx_payments_payment_reference", columnList = "paymentReference"))
 public class Payment {
 
     @Id
@@ -43,6 +43,9 @@ public class Payment {
     @Column
     private String paymentReference;
 
+    @Column
+    private String transactionReference; // Gateway's id for the settled transaction
+
     @Column
     private String receiptUrl;
 
@@ -156,6 +159,14 @@ public class Payment {
         this.paymentReference = paymentReference;
     }
 
+    public String getTransactionReference() {
+        return transactionReference;
+    }
+
+    public void setTransactionReference(String transactionReference) {
+        this.transactionReference = transactionReference;
+    }
+
     public String getReceiptUrl() {
         return receiptUrl;
     }
@@ -0,0 +1,210 @@
+package com.example.demo.entity;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Inbox row for a verified payment gateway callback, keyed by the gateway's
+ * event id. Always inserted, never merged, so a redelivered event fails on
+ * the primary key. Rows are applied to payments by PaymentEventReconciler
+ * and kept as an audit trail.
+ */
+@Entity
+@Table(name = "payment_gateway_events", indexes = {
+        @Index(name = "idx_payment_gateway_events_status", columnList = "status, nextAttemptAt"),
+        @Index(name = "idx_payment_gateway_events_claim_token", columnList = "claimToken")
+})
+public class PaymentGatewayEvent implements Persistable<String> {
+
+    @Id
+    @Column(length = 128)
+    private String eventId;
+
+    @Column(nullable = false, length = 64)
+    private String type;
+
+    @Column
+    private String paymentReference;
+
+    @Column
+    private String transactionReference;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private EventStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column
+    private String claimToken; // Set while a reconciler batch owns the row
+
+    @Column
+    private LocalDateTime claimedAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column
+    private LocalDateTime processedAt;
+
+    @Transient
+    private boolean newEntity = true;
+
+    public enum EventStatus {
+        PENDING,        // Waiting to be applied (or retried)
+        PROCESSING,     // Claimed by a reconciler batch
+        PROCESSED,      // Applied to the payment, or nothing to do
+        FAILED          // Gave up; needs a look
+    }
+
+    // Constructors
+    public PaymentGatewayEvent() {
+    }
+
+    public PaymentGatewayEvent(String eventId, String type, String paymentReference,
+            String transactionReference, BigDecimal amount) {
+        this.eventId = eventId;
+        this.type = type;
+        this.paymentReference = paymentReference;
+        this.transactionReference = transactionReference;
+        this.amount = amount;
+        this.status = EventStatus.PENDING;
+        this.attempts = 0;
+        this.receivedAt = LocalDateTime.now();
+        this.nextAttemptAt = this.receivedAt;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
+
+    @Override
+    public String getId() {
+        return eventId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    // Getters and Setters
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getPaymentReference() {
+        return paymentReference;
+    }
+
+    public void setPaymentReference(String paymentReference) {
+        this.paymentReference = paymentReference;
+    }
+
+    public String getTransactionReference() {
+        return transactionReference;
+    }
+
+    public void setTransactionReference(String transactionReference) {
+        this.transactionReference = transactionReference;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public EventStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(EventStatus status) {
+        this.status = status;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getClaimToken() {
+        return claimToken;
+    }
+
+    public void setClaimToken(String claimToken) {
+        this.claimToken = claimToken;
+    }
+
+    public LocalDateTime getClaimedAt() {
+        return claimedAt;
+    }
+
+    public void setClaimedAt(LocalDateTime claimedAt) {
+        this.claimedAt = claimedAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getReceivedAt() {
+        return receivedAt;
+    }
+
+    public void setReceivedAt(LocalDateTime receivedAt) {
+        this.receivedAt = receivedAt;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+
+    public void setProcessedAt(LocalDateTime processedAt) {
+        this.processedAt = processedAt;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.entity;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Record of an inbound WhatsApp message that has already been accepted for
+ * processing, keyed by Meta's message id.
+ * Always inserted, never merged, so a duplicate id fails on the primary key.
+ */
+@Entity
+@Table(name = "processed_messages", indexes = @Index(name = "idx_processed_messages_processed_at", columnList = "processedAt"))
+public class ProcessedMessage implements Persistable<String> {
+
+    @Id
+    @Column(length = 128)
+    private String messageId;
+
+    @Column(nullable = false)
+    private LocalDateTime processedAt;
+
+    @Transient
+    private boolean newEntity = true;
+
+    // Constructors
+    public ProcessedMessage() {
+    }
+
+    public ProcessedMessage(String messageId) {
+        this.messageId = messageId;
+        this.processedAt = LocalDateTime.now();
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
+
+    @Override
+    public String getId() {
+        return messageId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    // Getters and Setters
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(String messageId) {
+        this.messageId = messageId;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+
+    public void setProcessedAt(LocalDateTime processedAt) {
+        this.processedAt = processedAt;
+    }
+}
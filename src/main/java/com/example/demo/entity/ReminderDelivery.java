@@ -0,0 +1,80 @@
+package com.example.demo.entity;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Ledger entry for a reminder that has been sent for a session.
+ * The unique (sessionId, kind) pair means a reminder can only be recorded
+ * once, whichever instance or restart tries to send it; the entry is written
+ * in the same transaction that queues the messages.
+ */
+@Entity
+@Table(name = "reminder_deliveries",
+        uniqueConstraints = @UniqueConstraint(name = "uk_reminder_deliveries_session_kind",
+                columnNames = {"sessionId", "kind"}),
+        indexes = @Index(name = "idx_reminder_deliveries_sent_at", columnList = "sentAt"))
+public class ReminderDelivery {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Plain id rather than an association: the ledger is only ever matched by id
+    @Column(nullable = false)
+    private Long sessionId;
+
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private ReminderKind kind;
+
+    @Column(nullable = false)
+    private LocalDateTime sentAt;
+
+    public enum ReminderKind {
+        DAY_BEFORE, HOUR_BEFORE, REVIEW_REQUEST
+    }
+
+    // Constructors
+    public ReminderDelivery() {
+    }
+
+    public ReminderDelivery(Long sessionId, ReminderKind kind) {
+        this.sessionId = sessionId;
+        this.kind = kind;
+        this.sentAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(Long sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public ReminderKind getKind() {
+        return kind;
+    }
+
+    public void setKind(ReminderKind kind) {
+        this.kind = kind;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(LocalDateTime sentAt) {
+        this.sentAt = sentAt;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demo.entity;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Time-limited claim on a scheduled job, so that only one instance runs it.
+ * One row per job; it is taken over by updating the owner once the lease
+ * has expired. Always inserted, never merged, so two instances creating the
+ * row at once collide on the primary key.
+ */
+@Entity
+@Table(name = "scheduler_leases")
+public class SchedulerLease implements Persistable<String> {
+
+    @Id
+    @Column(length = 64)
+    private String jobName;
+
+    @Column(nullable = false, length = 128)
+    private String owner;
+
+    @Column(nullable = false)
+    private LocalDateTime leasedUntil;
+
+    @Transient
+    private boolean newEntity = true;
+
+    // Constructors
+    public SchedulerLease() {
+    }
+
+    public SchedulerLease(String jobName, String owner, LocalDateTime leasedUntil) {
+        this.jobName = jobName;
+        this.owner = owner;
+        this.leasedUntil = leasedUntil;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
+
+    @Override
+    public String getId() {
+        return jobName;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    // Getters and Setters
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public LocalDateTime getLeasedUntil() {
+        return leasedUntil;
+    }
+
+    public void setLeasedUntil(LocalDateTime leasedUntil) {
+        this.leasedUntil = leasedUntil;
+    }
+}
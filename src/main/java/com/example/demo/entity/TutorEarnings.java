@@ -0,0 +1,102 @@
+package com.example.demo.entity;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Running lifetime earnings for one tutor, kept by TutorEarningsLedger.
+ * Changed in the same transaction as the payment it accounts for; the
+ * version makes concurrent updates for the same tutor fail rather than
+ * lose one of them.
+ */
+@Entity
+@Table(name = "tutor_earnings")
+public class TutorEarnings implements Persistable<Long> {
+
+    @Id
+    private Long tutorId;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal lifetimeEarnings;
+
+    @Column(nullable = false)
+    private Integer paidSessions;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Version
+    private Long version;
+
+    // Constructors
+    public TutorEarnings() {
+    }
+
+    public TutorEarnings(Long tutorId) {
+        this.tutorId = tutorId;
+        this.lifetimeEarnings = BigDecimal.ZERO;
+        this.paidSessions = 0;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void add(BigDecimal earnings, int sessions) {
+        this.lifetimeEarnings = lifetimeEarnings.add(earnings);
+        this.paidSessions += sessions;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    @Override
+    public Long getId() {
+        return tutorId;
+    }
+
+    @Override
+    public boolean isNew() {
+        // Inserted, never merged, so two first payments for a tutor collide on the key
+        return version == null;
+    }
+
+    // Getters and Setters
+    public Long getTutorId() {
+        return tutorId;
+    }
+
+    public void setTutorId(Long tutorId) {
+        this.tutorId = tutorId;
+    }
+
+    public BigDecimal getLifetimeEarnings() {
+        return lifetimeEarnings;
+    }
+
+    public void setLifetimeEarnings(BigDecimal lifetimeEarnings) {
+        this.lifetimeEarnings = lifetimeEarnings;
+    }
+
+    public Integer getPaidSessions() {
+        return paidSessions;
+    }
+
+    public void setPaidSessions(Integer paidSessions) {
+        this.paidSessions = paidSessions;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
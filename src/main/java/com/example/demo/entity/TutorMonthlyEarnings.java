@@ -0,0 +1,114 @@
+package com.example.demo.entity;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One tutor's earnings for one calendar month, by the month the payment was
+ * made. Kept by TutorEarningsLedger alongside TutorEarnings.
+ */
+@Entity
+@Table(name = "tutor_monthly_earnings",
+        uniqueConstraints = @UniqueConstraint(name = "uk_tutor_monthly_earnings_tutor_period",
+                columnNames = {"tutorId", "period"}))
+public class TutorMonthlyEarnings {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long tutorId;
+
+    // YearMonth.toString(), e.g. 2024-03
+    @Column(nullable = false, length = 7)
+    private String period;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal earnings;
+
+    @Column(nullable = false)
+    private Integer paidSessions;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Version
+    private long version;
+
+    // Constructors
+    public TutorMonthlyEarnings() {
+    }
+
+    public TutorMonthlyEarnings(Long tutorId, String period) {
+        this.tutorId = tutorId;
+        this.period = period;
+        this.earnings = BigDecimal.ZERO;
+        this.paidSessions = 0;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void add(BigDecimal amount, int sessions) {
+        this.earnings = earnings.add(amount);
+        this.paidSessions += sessions;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getTutorId() {
+        return tutorId;
+    }
+
+    public void setTutorId(Long tutorId) {
+        this.tutorId = tutorId;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(String period) {
+        this.period = period;
+    }
+
+    public BigDecimal getEarnings() {
+        return earnings;
+    }
+
+    public void setEarnings(BigDecimal earnings) {
+        this.earnings = earnings;
+    }
+
+    public Integer getPaidSessions() {
+        return paidSessions;
+    }
+
+    public void setPaidSessions(Integer paidSessions) {
+        this.paidSessions = paidSessions;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
@@ -37,6 +37,15 @@ public class User {
     @Enumerated(EnumType.STRING)
     private UserStatus status; // ACTIVE, INACTIVE, PENDING
 
+    // Tutor rating aggregates; null means no ratings yet. Read-only here: only
+    // UserRepository's addRating and rebuild updates write them, so saving a
+    // stale User cannot overwrite a rating that landed in between
+    @Column(insertable = false, updatable = false)
+    private Integer ratingCount;
+
+    @Column(insertable = false, updatable = false)
+    private Integer ratingSum;
+
     public enum UserRole {
         TUTOR, STUDENT
     }
@@ -131,4 +140,35 @@ public class User {
     public void setStatus(UserStatus status) {
         this.status = status;
     }
+
+    public int getRatingCount() {
+        return ratingCount != null ? ratingCount : 0;
+    }
+
+    public int getRatingSum() {
+        return ratingSum != null ? ratingSum : 0;
+    }
+
+    /**
+     * Detached copy carrying the same id and column values
+     */
+    public User copy() {
+        User copy = new User(phoneNumber, fullName, role, password);
+        copy.id = id;
+        copy.email = email;
+        copy.createdAt = createdAt;
+        copy.lastLoginAt = lastLoginAt;
+        copy.status = status;
+        copy.ratingCount = ratingCount;
+        copy.ratingSum = ratingSum;
+        return copy;
+    }
+
+    /**
+     * Average stars, or null if the tutor has not been rated
+     */
+    public Double getAverageRating() {
+        int count = getRatingCount();
+        return count > 0 ? (double) getRatingSum() / count : null;
+    }
 }
@@ -1,7 +1,9 @@
 package com.example.demo.entity;
 
 import javax.persistence.*;
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Entity
 @Table(name = "user_sessions")
@@ -11,6 +13,11 @@ public class UserSession {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Guards against a stale copy overwriting newer state; the default fills existing rows
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     @Column(nullable = false, unique = true)
     private String phoneNumber;
 
@@ -21,22 +28,31 @@ public class UserSession {
     @Column
     private String selectedRole; // TUTOR or STUDENT
 
+    @Column
+    private Long userId; // Signed-in user, set on login or registration
+
     @Column
     private String tempFullName; // Temporary storage during registration
 
     @Column
     private String tempEmail; // Temporary storage during registration
 
+    // Booking flow temporary data
     @Column
-    private String tempPassword; // Temporary storage during registration
+    private Long catalogVersion; // Subject catalog version the subject list was built from
 
-    // Booking flow temporary data
     @Column
     private Long tempSubjectId;
 
     @Column
     private Long tempTutorId;
 
+    @Column(length = 256)
+    private byte[] tempCandidateIds; // Tutor ids in the order they were listed, packed as longs
+
+    @Column(length = 100)
+    private String listCursor; // Where the last paged list shown ended, see ListCursor
+
     @Column
     private Long tempSessionId;
 
@@ -110,6 +126,14 @@ public class UserSession {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getPhoneNumber() {
         return phoneNumber;
     }
@@ -135,6 +159,14 @@ public class UserSession {
         this.selectedRole = selectedRole;
     }
 
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
     public String getTempFullName() {
         return tempFullName;
     }
@@ -151,14 +183,6 @@ public class UserSession {
         this.tempEmail = tempEmail;
     }
 
-    public String getTempPassword() {
-        return tempPassword;
-    }
-
-    public void setTempPassword(String tempPassword) {
-        this.tempPassword = tempPassword;
-    }
-
     public LocalDateTime getLastInteractionAt() {
         return lastInteractionAt;
     }
@@ -179,12 +203,49 @@ public class UserSession {
         this.lastInteractionAt = LocalDateTime.now();
     }
 
+    /**
+     * Detached copy of this session with the same id and version, so it can be
+     * written while the original keeps changing
+     */
+    public UserSession copy() {
+        UserSession copy = new UserSession(phoneNumber);
+        copy.id = id;
+        copy.version = version;
+        copy.restore(this);
+        return copy;
+    }
+
+    /**
+     * Overwrite the conversation state with another copy's, keeping this
+     * session's id and version
+     */
+    public void restore(UserSession from) {
+        state = from.state;
+        selectedRole = from.selectedRole;
+        userId = from.userId;
+        tempFullName = from.tempFullName;
+        tempEmail = from.tempEmail;
+        catalogVersion = from.catalogVersion;
+        tempSubjectId = from.tempSubjectId;
+        tempTutorId = from.tempTutorId;
+        tempCandidateIds = from.tempCandidateIds != null ? from.tempCandidateIds.clone() : null;
+        listCursor = from.listCursor;
+        tempSessionId = from.tempSessionId;
+        tempSessionType = from.tempSessionType;
+        tempDateTime = from.tempDateTime;
+        tempNotes = from.tempNotes;
+        lastInteractionAt = from.lastInteractionAt;
+        createdAt = from.createdAt;
+    }
+
     public void clearTempData() {
         this.tempFullName = null;
         this.tempEmail = null;
-        this.tempPassword = null;
+        this.catalogVersion = null;
         this.tempSubjectId = null;
         this.tempTutorId = null;
+        this.tempCandidateIds = null;
+        this.listCursor = null;
         this.tempSessionId = null;
         this.tempSessionType = null;
         this.tempDateTime = null;
@@ -192,6 +253,14 @@ public class UserSession {
     }
 
     // Booking flow getters and setters
+    public Long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public void setCatalogVersion(Long catalogVersion) {
+        this.catalogVersion = catalogVersion;
+    }
+
     public Long getTempSubjectId() {
         return tempSubjectId;
     }
@@ -208,6 +277,51 @@ public class UserSession {
         this.tempTutorId = tempTutorId;
     }
 
+    public String getListCursor() {
+        return listCursor;
+    }
+
+    public void setListCursor(String listCursor) {
+        this.listCursor = listCursor;
+    }
+
+    /**
+     * Remember the tutor ids shown to the user, in list order
+     */
+    public void setTempCandidateIds(List<Long> tutorIds) {
+        ByteBuffer buffer = ByteBuffer.allocate(tutorIds.size() * Long.BYTES);
+        for (Long tutorId : tutorIds) {
+            buffer.putLong(tutorId);
+        }
+        this.tempCandidateIds = buffer.array();
+    }
+
+    /**
+     * Tutor id listed at a 1-based position, or null if out of range
+     */
+    public Long getTempCandidateId(int position) {
+        if (tempCandidateIds == null || position < 1 || position > tempCandidateIds.length / Long.BYTES) {
+            return null;
+        }
+        return ByteBuffer.wrap(tempCandidateIds).getLong((position - 1) * Long.BYTES);
+    }
+
+    /**
+     * Whether a tutor id was among those listed to the user
+     */
+    public boolean isTempCandidate(long tutorId) {
+        if (tempCandidateIds == null) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(tempCandidateIds);
+        while (buffer.remaining() >= Long.BYTES) {
+            if (buffer.getLong() == tutorId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public Long getTempSessionId() {
         return tempSessionId;
     }
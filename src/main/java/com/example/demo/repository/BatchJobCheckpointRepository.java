@@ -0,0 +1,13 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.BatchJobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BatchJobCheckpointRepository extends JpaRepository<BatchJobCheckpoint, String> {
+
+    List<BatchJobCheckpoint> findByRunKeyStartingWithAndCompletedAtIsNull(String prefix);
+}
@@ -0,0 +1,86 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.OutboundMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboundMessageRepository extends JpaRepository<OutboundMessage, Long> {
+
+    /**
+     * Due rows in send order, skipping any row whose recipient still has an
+     * earlier message in flight or waiting for a retry
+     */
+    @Query("SELECT m FROM OutboundMessage m WHERE m.status = :pending AND m.nextAttemptAt <= :now " +
+            "AND NOT EXISTS (SELECT o.id FROM OutboundMessage o WHERE o.recipient = m.recipient AND o.id < m.id " +
+            "AND (o.status = :sending OR (o.status = :pending AND o.nextAttemptAt > :now))) " +
+            "ORDER BY m.id ASC")
+    List<OutboundMessage> findDeliverable(@Param("now") LocalDateTime now,
+            @Param("pending") OutboundMessage.OutboundStatus pending,
+            @Param("sending") OutboundMessage.OutboundStatus sending,
+            Pageable pageable);
+
+    List<OutboundMessage> findByClaimTokenOrderByIdAsc(String claimToken);
+
+    long countByStatus(OutboundMessage.OutboundStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboundMessage m SET m.status = :sending, m.claimToken = :token, m.claimedAt = :now " +
+            "WHERE m.id IN :ids AND m.status = :pending")
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("now") LocalDateTime now,
+            @Param("pending") OutboundMessage.OutboundStatus pending,
+            @Param("sending") OutboundMessage.OutboundStatus sending);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboundMessage m SET m.status = :status, m.sentAt = :now, m.attempts = m.attempts + 1, " +
+            "m.claimToken = NULL WHERE m.id = :id")
+    int markSent(@Param("id") Long id, @Param("now") LocalDateTime now,
+            @Param("status") OutboundMessage.OutboundStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboundMessage m SET m.status = :status, m.attempts = m.attempts + 1, " +
+            "m.nextAttemptAt = :nextAttemptAt, m.lastError = :error, m.claimToken = NULL WHERE m.id = :id")
+    int markForRetry(@Param("id") Long id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+            @Param("error") String error, @Param("status") OutboundMessage.OutboundStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboundMessage m SET m.status = :status, m.attempts = m.attempts + 1, " +
+            "m.lastError = :error, m.claimToken = NULL WHERE m.id = :id")
+    int markFailed(@Param("id") Long id, @Param("error") String error,
+            @Param("status") OutboundMessage.OutboundStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboundMessage m SET m.status = :pending, m.claimToken = NULL " +
+            "WHERE m.id IN :ids AND m.status = :sending")
+    int release(@Param("ids") Collection<Long> ids,
+            @Param("pending") OutboundMessage.OutboundStatus pending,
+            @Param("sending") OutboundMessage.OutboundStatus sending);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OutboundMessage m WHERE m.status IN :statuses AND m.createdAt < :cutoff")
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff,
+            @Param("statuses") Collection<OutboundMessage.OutboundStatus> statuses);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboundMessage m SET m.status = :pending, m.claimToken = NULL " +
+            "WHERE m.status = :sending AND m.claimedAt < :cutoff")
+    int releaseStaleClaims(@Param("cutoff") LocalDateTime cutoff,
+            @Param("pending") OutboundMessage.OutboundStatus pending,
+            @Param("sending") OutboundMessage.OutboundStatus sending);
+}
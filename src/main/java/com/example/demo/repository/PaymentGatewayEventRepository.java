@@ -0,0 +1,69 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.PaymentGatewayEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PaymentGatewayEventRepository extends JpaRepository<PaymentGatewayEvent, String> {
+
+    @Query("SELECT e.eventId FROM PaymentGatewayEvent e WHERE e.status = :pending AND e.nextAttemptAt <= :now " +
+            "ORDER BY e.receivedAt ASC")
+    List<String> findDueIds(@Param("now") LocalDateTime now,
+            @Param("pending") PaymentGatewayEvent.EventStatus pending,
+            Pageable pageable);
+
+    List<PaymentGatewayEvent> findByClaimTokenOrderByReceivedAtAsc(String claimToken);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PaymentGatewayEvent e SET e.status = :processing, e.claimToken = :token, e.claimedAt = :now " +
+            "WHERE e.eventId IN :ids AND e.status = :pending")
+    int claim(@Param("ids") Collection<String> ids, @Param("token") String token, @Param("now") LocalDateTime now,
+            @Param("pending") PaymentGatewayEvent.EventStatus pending,
+            @Param("processing") PaymentGatewayEvent.EventStatus processing);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PaymentGatewayEvent e SET e.status = :status, e.processedAt = :now, " +
+            "e.attempts = e.attempts + 1, e.lastError = :note, e.claimToken = NULL WHERE e.eventId = :id")
+    int markProcessed(@Param("id") String id, @Param("now") LocalDateTime now, @Param("note") String note,
+            @Param("status") PaymentGatewayEvent.EventStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PaymentGatewayEvent e SET e.status = :status, e.attempts = e.attempts + 1, " +
+            "e.nextAttemptAt = :nextAttemptAt, e.lastError = :error, e.claimToken = NULL WHERE e.eventId = :id")
+    int markForRetry(@Param("id") String id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+            @Param("error") String error, @Param("status") PaymentGatewayEvent.EventStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PaymentGatewayEvent e SET e.status = :status, e.attempts = e.attempts + 1, " +
+            "e.lastError = :error, e.claimToken = NULL WHERE e.eventId = :id")
+    int markFailed(@Param("id") String id, @Param("error") String error,
+            @Param("status") PaymentGatewayEvent.EventStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PaymentGatewayEvent e WHERE e.status IN :statuses AND e.receivedAt < :cutoff")
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff,
+            @Param("statuses") Collection<PaymentGatewayEvent.EventStatus> statuses);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PaymentGatewayEvent e SET e.status = :pending, e.claimToken = NULL " +
+            "WHERE e.status = :processing AND e.claimedAt < :cutoff")
+    int releaseStaleClaims(@Param("cutoff") LocalDateTime cutoff,
+            @Param("pending") PaymentGatewayEvent.EventStatus pending,
+            @Param("processing") PaymentGatewayEvent.EventStatus processing);
+}
@@ -1,28 +1,54 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.PaymentReminder;
+import com.example.demo.dto.TutorEarningsSummary;
+import com.example.demo.dto.TutorMonthTotal;
 import com.example.demo.entity.Payment;
 import com.example.demo.entity.TutoringSession;
 import com.example.demo.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     
     Optional<Payment> findBySession(TutoringSession session);
+
+    Optional<Payment> findByPaymentReference(String paymentReference);
     
     List<Payment> findByStudent(User student);
     
     List<Payment> findByTutor(User tutor);
     
     List<Payment> findByStatus(Payment.PaymentStatus status);
+
+    boolean existsByStatus(Payment.PaymentStatus status);
+
+    /**
+     * Unpaid payments for confirmed sessions starting after the given time.
+     * Must be consumed inside a transaction and closed; rows are fetched from
+     * the database in chunks as the stream is read.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "200"))
+    @Query("SELECT new com.example.demo.dto.PaymentReminder(p.id, st.phoneNumber, p.totalAmount, " +
+            "sub.name, t.fullName, s.sessionDateTime, p.paymentReference, p.paymentLink) " +
+            "FROM Payment p JOIN p.session s JOIN s.subject sub JOIN p.tutor t JOIN p.student st " +
+            "WHERE p.status = :status AND s.status = :sessionStatus AND s.sessionDateTime > :after " +
+            "ORDER BY p.id")
+    Stream<PaymentReminder> streamPaymentReminders(@Param("status") Payment.PaymentStatus status,
+            @Param("sessionStatus") TutoringSession.SessionStatus sessionStatus,
+            @Param("after") LocalDateTime after);
     
     List<Payment> findByStudentAndStatus(User student, Payment.PaymentStatus status);
     
@@ -33,4 +59,30 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     
     @Query("SELECT SUM(p.tutorEarnings) FROM Payment p WHERE p.tutor = :tutor AND p.status = :status AND p.paidAt BETWEEN :start AND :end")
     BigDecimal calculateEarningsInPeriod(@Param("tutor") User tutor, @Param("status") Payment.PaymentStatus status, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Month and lifetime paid earnings per tutor, for tutors after afterTutorId,
+     * in tutor id order. Lifetime totals stop at the end of the month.
+     */
+    @Query("SELECT new com.example.demo.dto.TutorEarningsSummary(t.id, t.phoneNumber, " +
+            "SUM(CASE WHEN p.paidAt >= :start THEN p.tutorEarnings ELSE 0 END), " +
+            "SUM(CASE WHEN p.paidAt >= :start THEN 1 ELSE 0 END), " +
+            "SUM(p.tutorEarnings)) " +
+            "FROM Payment p JOIN p.tutor t " +
+            "WHERE p.status = :status AND p.paidAt < :end AND t.id > :afterTutorId " +
+            "GROUP BY t.id, t.phoneNumber " +
+            "ORDER BY t.id")
+    List<TutorEarningsSummary> summarizeTutorEarnings(@Param("status") Payment.PaymentStatus status,
+            @Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+            @Param("afterTutorId") Long afterTutorId, Pageable pageable);
+
+    /**
+     * Earnings per tutor per month of payment, the source of truth for the earnings ledger
+     */
+    @Query("SELECT new com.example.demo.dto.TutorMonthTotal(p.tutor.id, YEAR(p.paidAt), MONTH(p.paidAt), " +
+            "SUM(p.tutorEarnings), COUNT(p)) " +
+            "FROM Payment p WHERE p.status = :status " +
+            "GROUP BY p.tutor.id, YEAR(p.paidAt), MONTH(p.paidAt) " +
+            "ORDER BY p.tutor.id")
+    List<TutorMonthTotal> sumEarningsByTutorAndMonth(@Param("status") Payment.PaymentStatus status);
 }
@@ -0,0 +1,22 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.ReminderDelivery;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ReminderDeliveryRepository extends JpaRepository<ReminderDelivery, Long> {
+
+    boolean existsBySessionIdAndKind(Long sessionId, ReminderDelivery.ReminderKind kind);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ReminderDelivery d WHERE d.sentAt < :cutoff")
+    int deleteSentBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,25 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    /**
+     * Take over or extend a lease; updates nothing while another owner holds it
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLease l SET l.owner = :owner, l.leasedUntil = :until " +
+            "WHERE l.jobName = :jobName AND (l.leasedUntil < :now OR l.owner = :owner)")
+    int claim(@Param("jobName") String jobName, @Param("owner") String owner,
+            @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+}
@@ -0,0 +1,15 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.TutorEarnings;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TutorEarningsRepository extends JpaRepository<TutorEarnings, Long> {
+
+    @Query("SELECT e.tutorId FROM TutorEarnings e")
+    List<Long> findAllTutorIds();
+}
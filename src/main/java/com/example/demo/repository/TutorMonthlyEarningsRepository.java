@@ -0,0 +1,16 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.TutorMonthlyEarnings;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TutorMonthlyEarningsRepository extends JpaRepository<TutorMonthlyEarnings, Long> {
+
+    Optional<TutorMonthlyEarnings> findByTutorIdAndPeriod(Long tutorId, String period);
+
+    List<TutorMonthlyEarnings> findByTutorId(Long tutorId);
+}
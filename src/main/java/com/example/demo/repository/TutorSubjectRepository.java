@@ -1,13 +1,16 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.TutorCandidate;
 import com.example.demo.entity.Subject;
 import com.example.demo.entity.TutorSubject;
 import com.example.demo.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +27,29 @@ public interface TutorSubjectRepository extends JpaRepository<TutorSubject, Long
     
     Optional<TutorSubject> findByTutorAndSubject(User tutor, Subject subject);
     
-    @Query("SELECT ts FROM TutorSubject ts WHERE ts.subject = :subject AND ts.active = true ORDER BY ts.hourlyRate ASC")
+    @Query("SELECT ts FROM TutorSubject ts JOIN FETCH ts.tutor WHERE ts.subject = :subject AND ts.active = true " +
+            "ORDER BY ts.hourlyRate ASC")
     List<TutorSubject> findTutorsForSubjectOrderedByRate(@Param("subject") Subject subject);
+
+    /**
+     * First page of tutors for a subject, cheapest first
+     */
+    @Query("SELECT new com.example.demo.dto.TutorCandidate(t.id, t.fullName, ts.hourlyRate, ts.qualifications, " +
+            "t.ratingCount, t.ratingSum) " +
+            "FROM TutorSubject ts JOIN ts.tutor t " +
+            "WHERE ts.subject.id = :subjectId AND ts.active = true " +
+            "ORDER BY ts.hourlyRate ASC, t.id ASC")
+    List<TutorCandidate> findCandidatesForSubject(@Param("subjectId") Long subjectId, Pageable pageable);
+
+    /**
+     * Next page of tutors for a subject, after the (rate, tutor id) of the last one shown
+     */
+    @Query("SELECT new com.example.demo.dto.TutorCandidate(t.id, t.fullName, ts.hourlyRate, ts.qualifications, " +
+            "t.ratingCount, t.ratingSum) " +
+            "FROM TutorSubject ts JOIN ts.tutor t " +
+            "WHERE ts.subject.id = :subjectId AND ts.active = true " +
+            "AND (ts.hourlyRate > :afterRate OR (ts.hourlyRate = :afterRate AND t.id > :afterId)) " +
+            "ORDER BY ts.hourlyRate ASC, t.id ASC")
+    List<TutorCandidate> findCandidatesForSubjectAfter(@Param("subjectId") Long subjectId,
+            @Param("afterRate") BigDecimal afterRate, @Param("afterId") Long afterId, Pageable pageable);
 }
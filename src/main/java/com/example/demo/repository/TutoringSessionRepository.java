@@ -1,7 +1,9 @@
 package com.example.demo.repository;
 
+import com.example.demo.entity.ReminderDelivery;
 import com.example.demo.entity.TutoringSession;
 import com.example.demo.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -23,12 +25,32 @@ public interface TutoringSessionRepository extends JpaRepository<TutoringSession
     
     List<TutoringSession> findByTutorAndStatus(User tutor, TutoringSession.SessionStatus status);
     
-    @Query("SELECT s FROM TutoringSession s WHERE s.tutor = :tutor AND s.status = :status AND s.sessionDateTime > :now ORDER BY s.sessionDateTime ASC")
-    List<TutoringSession> findUpcomingSessionsForTutor(@Param("tutor") User tutor, @Param("status") TutoringSession.SessionStatus status, @Param("now") LocalDateTime now);
+    // Keyset pages ordered by (sessionDateTime, id): pass the last row's values to get the next page
     
-    @Query("SELECT s FROM TutoringSession s WHERE s.student = :student AND s.status = :status AND s.sessionDateTime > :now ORDER BY s.sessionDateTime ASC")
-    List<TutoringSession> findUpcomingSessionsForStudent(@Param("student") User student, @Param("status") TutoringSession.SessionStatus status, @Param("now") LocalDateTime now);
+    @Query("SELECT s FROM TutoringSession s WHERE s.tutor = :tutor AND s.status = :status " +
+            "AND (s.sessionDateTime > :afterTime OR (s.sessionDateTime = :afterTime AND s.id > :afterId)) " +
+            "ORDER BY s.sessionDateTime ASC, s.id ASC")
+    List<TutoringSession> findTutorSessionsAfter(@Param("tutor") User tutor, @Param("status") TutoringSession.SessionStatus status, @Param("afterTime") LocalDateTime afterTime, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT s FROM TutoringSession s WHERE s.student = :student AND s.status = :status " +
+            "AND (s.sessionDateTime > :afterTime OR (s.sessionDateTime = :afterTime AND s.id > :afterId)) " +
+            "ORDER BY s.sessionDateTime ASC, s.id ASC")
+    List<TutoringSession> findStudentSessionsAfter(@Param("student") User student, @Param("status") TutoringSession.SessionStatus status, @Param("afterTime") LocalDateTime afterTime, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT s FROM TutoringSession s WHERE s.tutor = :tutor " +
+            "AND (s.sessionDateTime < :beforeTime OR (s.sessionDateTime = :beforeTime AND s.id < :beforeId)) " +
+            "ORDER BY s.sessionDateTime DESC, s.id DESC")
+    List<TutoringSession> findTutorHistoryBefore(@Param("tutor") User tutor, @Param("beforeTime") LocalDateTime beforeTime, @Param("beforeId") Long beforeId, Pageable pageable);
+    
+    @Query("SELECT s FROM TutoringSession s WHERE s.student = :student " +
+            "AND (s.sessionDateTime < :beforeTime OR (s.sessionDateTime = :beforeTime AND s.id < :beforeId)) " +
+            "ORDER BY s.sessionDateTime DESC, s.id DESC")
+    List<TutoringSession> findStudentHistoryBefore(@Param("student") User student, @Param("beforeTime") LocalDateTime beforeTime, @Param("beforeId") Long beforeId, Pageable pageable);
     
     @Query("SELECT s FROM TutoringSession s WHERE s.sessionDateTime BETWEEN :start AND :end AND s.status IN :statuses")
     List<TutoringSession> findSessionsInDateRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end, @Param("statuses") List<TutoringSession.SessionStatus> statuses);
+
+    @Query("SELECT s FROM TutoringSession s WHERE s.sessionDateTime BETWEEN :start AND :end AND s.status = :status " +
+            "AND NOT EXISTS (SELECT d FROM ReminderDelivery d WHERE d.sessionId = s.id AND d.kind = :kind)")
+    List<TutoringSession> findSessionsWithoutDelivery(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end, @Param("status") TutoringSession.SessionStatus status, @Param("kind") ReminderDelivery.ReminderKind kind);
 }
@@ -2,7 +2,11 @@ package com.example.demo.repository;
 
 import com.example.demo.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -16,4 +20,36 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByPhoneNumber(String phoneNumber);
 
     boolean existsByEmail(String email);
+
+    /**
+     * Add one rating to a tutor's aggregates in place, without reading the row
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.ratingCount = COALESCE(u.ratingCount, 0) + 1, " +
+            "u.ratingSum = COALESCE(u.ratingSum, 0) + :stars WHERE u.id = :tutorId")
+    int addRating(@Param("tutorId") Long tutorId, @Param("stars") int stars);
+
+    /**
+     * Recompute every tutor's rating aggregates from the ratings table
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET " +
+            "u.ratingCount = (SELECT COUNT(r) FROM Rating r WHERE r.tutor = u), " +
+            "u.ratingSum = (SELECT COALESCE(SUM(r.stars), 0) FROM Rating r WHERE r.tutor = u) " +
+            "WHERE u.role = :role")
+    int rebuildRatingAggregates(@Param("role") User.UserRole role);
+
+    /**
+     * Compute aggregates for tutors that have never had them, e.g. rows
+     * created before the columns existed
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET " +
+            "u.ratingCount = (SELECT COUNT(r) FROM Rating r WHERE r.tutor = u), " +
+            "u.ratingSum = (SELECT COALESCE(SUM(r.stars), 0) FROM Rating r WHERE r.tutor = u) " +
+            "WHERE u.role = :role AND u.ratingCount IS NULL")
+    int backfillRatingAggregates(@Param("role") User.UserRole role);
 }
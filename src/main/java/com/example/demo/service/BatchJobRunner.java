@@ -0,0 +1,205 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.BatchSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Fans the items of a scheduled job out over a small shared worker pool.
+ * Each item is handled independently: a failure is counted and logged and
+ * does not stop the rest. The caller waits for the whole batch and gets a
+ * summary with latency percentiles; the same latencies are published as
+ * whatsapp.batch.item timers tagged by job and outcome.
+ * Items can come from a Stream: the producer blocks once the pool has
+ * workers + queue-capacity items in hand, and the summary percentiles come
+ * from a fixed-size sample, so memory does not grow with the batch.
+ * Items usually just queue messages on the outbox, which sends them under
+ * the global Meta rate limit, so the pool bounds database work, not sends.
+ */
+@Component
+public class BatchJobRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchJobRunner.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${batch.workers:4}")
+    private int workerCount;
+
+    @Value("${batch.queue-capacity:200}")
+    private int queueCapacity;
+
+    // Latencies kept per run for the summary percentiles
+    private static final int LATENCY_SAMPLE_SIZE = 2048;
+
+    private ExecutorService workers;
+
+    // Items handed to the pool and not yet finished, across all running jobs
+    private Semaphore inFlight;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount,
+                runnable -> new Thread(runnable, "batch-worker-" + threadCount.incrementAndGet()));
+        // Producers wait rather than run items themselves, since they may be
+        // holding a read-only transaction open to stream the items
+        inFlight = new Semaphore(workerCount + queueCapacity);
+    }
+
+    /**
+     * Run action for every item and wait for all of them.
+     * The action returns true if it did something and false if the item
+     * needed nothing; an exception counts as a failure.
+     */
+    public <T> BatchSummary run(String job, List<T> items, Predicate<T> action) {
+        return run(job, items.iterator(), action);
+    }
+
+    /**
+     * Stream variant; the stream is read on the calling thread, which waits
+     * while the pool is full, and is not closed here
+     */
+    public <T> BatchSummary run(String job, Stream<T> items, Predicate<T> action) {
+        return run(job, items.iterator(), action);
+    }
+
+    private <T> BatchSummary run(String job, Iterator<T> items, Predicate<T> action) {
+        long started = System.nanoTime();
+        LatencySample latencies = new LatencySample(LATENCY_SAMPLE_SIZE);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        Semaphore finished = new Semaphore(0);
+        int submitted = 0;
+
+        try {
+            while (items.hasNext()) {
+                T item = items.next();
+                inFlight.acquire();
+                Runnable task = () -> {
+                    long itemStarted = System.nanoTime();
+                    String outcome = "failed";
+                    try {
+                        if (action.test(item)) {
+                            succeeded.incrementAndGet();
+                            outcome = "succeeded";
+                        } else {
+                            skipped.incrementAndGet();
+                            outcome = "skipped";
+                        }
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        logger.error("{}: item {} failed: {}", job, item, e.getMessage(), e);
+                    } finally {
+                        long latency = System.nanoTime() - itemStarted;
+                        latencies.add(latency);
+                        itemTimer(job, outcome).record(latency, TimeUnit.NANOSECONDS);
+                        inFlight.release();
+                        finished.release();
+                    }
+                };
+                try {
+                    workers.execute(task);
+                } catch (RejectedExecutionException e) {
+                    // The pool is shutting down; wait only for what it accepted
+                    inFlight.release();
+                    logger.warn("{}: worker pool rejected work, stopping after {} items", job, submitted);
+                    break;
+                }
+                submitted++;
+            }
+            finished.acquire(submitted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        long[] sorted = latencies.sorted();
+        BatchSummary summary = new BatchSummary(job, succeeded.get(), skipped.get(), failed.get(),
+                percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.95),
+                percentileMillis(sorted, 0.99),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        if (summary.total() > 0) {
+            logger.info("{}: {} succeeded, {} skipped, {} failed in {}ms (p50 {}ms, p95 {}ms, p99 {}ms)",
+                    job, summary.succeeded(), summary.skipped(), summary.failed(), summary.elapsedMs(),
+                    summary.p50Ms(), summary.p95Ms(), summary.p99Ms());
+        }
+        return summary;
+    }
+
+    private Timer itemTimer(String job, String outcome) {
+        return Timer.builder("whatsapp.batch.item")
+                .tag("job", job)
+                .tag("outcome", outcome)
+                .description("Time to handle one item of a scheduled batch job")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    // Nearest-rank percentile of sorted nanosecond latencies
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(rank, 1) - 1] / 1_000_000.0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * Uniform random sample of at most capacity latencies (reservoir sampling)
+     */
+    private static final class LatencySample {
+
+        private final long[] values;
+        private long seen;
+
+        private LatencySample(int capacity) {
+            this.values = new long[capacity];
+        }
+
+        synchronized void add(long value) {
+            if (seen < values.length) {
+                values[(int) seen] = value;
+            } else {
+                long slot = ThreadLocalRandom.current().nextLong(seen + 1);
+                if (slot < values.length) {
+                    values[(int) slot] = value;
+                }
+            }
+            seen++;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(values, (int) Math.min(seen, values.length));
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
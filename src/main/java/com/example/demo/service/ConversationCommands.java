@@ -0,0 +1,97 @@
+package com.example.demo.service;
+
+import java.util.regex.Pattern;
+
+/**
+ * Command patterns used by the conversation handlers, compiled once.
+ * All patterns match against ConversationInput.normalized().
+ */
+final class ConversationCommands {
+
+    static final Pattern GREETING = Pattern.compile("hi|hello|hey|start|menu");
+
+    static final Pattern ROLE_TUTOR = Pattern.compile("1|tutor");
+    static final Pattern ROLE_STUDENT = Pattern.compile("2|student");
+
+    static final Pattern ACTION_REGISTER = Pattern.compile("1|register");
+    static final Pattern ACTION_LOGIN = Pattern.compile("2|login");
+    static final Pattern ACTION_STATUS = Pattern.compile("3|status");
+
+    static final Pattern STUDENT_BOOK = Pattern.compile("1|book");
+    static final Pattern STUDENT_SESSIONS = Pattern.compile("2|sessions?");
+
+    static final Pattern TUTOR_SESSIONS = Pattern.compile("1|sessions");
+    static final Pattern TUTOR_PENDING = Pattern.compile("2|pending");
+    static final Pattern TUTOR_AVAILABILITY = Pattern.compile("3|availability");
+    static final Pattern TUTOR_EARNINGS = Pattern.compile("4|earnings");
+
+    static final Pattern TYPE_ONLINE = Pattern.compile("1|online.*");
+    static final Pattern TYPE_IN_PERSON = Pattern.compile("2|in-person.*|in person.*");
+
+    static final Pattern DURATION_30 = Pattern.compile(".*30.*|1");
+    static final Pattern DURATION_60 = Pattern.compile(".*60.*|2");
+    static final Pattern DURATION_90 = Pattern.compile(".*90.*|3");
+
+    static final Pattern CONFIRM = Pattern.compile("1|yes.*|confirm.*");
+
+    // "More" rows and buttons on paged lists; typing "more" or "next" works too
+    static final Pattern NEXT_PAGE = Pattern.compile(".*\\b(more|next)\\b.*");
+
+    // Kinds of reply id put on the buttons and list rows we send, as "kind:value"
+    static final String REPLY_COMMAND = "cmd";       // cmd:book, a command word from a menu button
+    static final String REPLY_SUBJECT = "subject";   // subject:7
+    static final String REPLY_TUTOR = "tutor";       // tutor:42
+    static final String REPLY_TYPE = "type";         // type:ONLINE
+    static final String REPLY_DURATION = "dur";      // dur:60
+    static final String REPLY_CONFIRM = "confirm";   // confirm:yes
+    static final String REPLY_PAGE = "page";         // page:next
+    static final String REPLY_STARS = "stars";       // stars:5
+    static final String REPLY_REVIEW = "review";     // review:<session id>:<stars>, from review requests
+
+    /**
+     * Star ratings, checked from 5 down to 1 so "5" wins over any other digit
+     */
+    static final Pattern[] STARS = {
+            null,
+            Pattern.compile(".*1.*|one"),
+            Pattern.compile(".*2.*|two"),
+            Pattern.compile(".*3.*|three"),
+            Pattern.compile(".*4.*|four"),
+            Pattern.compile(".*5.*|five")
+    };
+
+    private ConversationCommands() {
+    }
+
+    /**
+     * Parse a 1-5 star rating, or 0 if the input is not a rating
+     */
+    static int parseStars(ConversationInput input) {
+        Long tapped = input.replyNumber(REPLY_STARS);
+        if (tapped != null) {
+            return tapped >= 1 && tapped <= 5 ? tapped.intValue() : 0;
+        }
+        for (int stars = 5; stars >= 1; stars--) {
+            if (input.matches(STARS[stars])) {
+                return stars;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Yes on a confirmation: the confirm button, or a typed yes
+     */
+    static boolean isConfirmed(ConversationInput input) {
+        String tapped = input.reply(REPLY_CONFIRM);
+        return tapped != null ? tapped.equals("yes") : input.matches(CONFIRM);
+    }
+
+    static boolean isNextPage(ConversationInput input) {
+        return input.isReply(REPLY_PAGE, "next") || input.matches(NEXT_PAGE);
+    }
+
+    static String replyId(String kind, Object value) {
+        return kind + ":" + value;
+    }
+}
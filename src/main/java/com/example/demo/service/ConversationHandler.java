@@ -0,0 +1,13 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.UserSession;
+
+/**
+ * Handles one message for a user whose session is in a given conversation state.
+ * Handlers are registered per state in ConversationService's state table.
+ */
+@FunctionalInterface
+public interface ConversationHandler {
+
+    void handle(UserSession session, ConversationInput input);
+}
@@ -0,0 +1,191 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PasswordCheck;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * An inbound message as seen by the conversation handlers.
+ * The text is trimmed, lower-cased and split into a leading command word and
+ * its argument once per message, so handlers never re-normalize it.
+ * Taps on buttons and list rows also carry the reply id we gave them, in the
+ * form "kind:value" (see ConversationCommands), so handlers can act on the id
+ * instead of matching the title.
+ * A password message also carries the result of hashing or verifying it,
+ * which is done before the message's transaction opens.
+ */
+public final class ConversationInput {
+
+    private final String raw;
+    private final String text;
+    private final String normalized;
+    private final String command;
+    private final String argument;
+    private final String replyId;
+    private final String passwordHash;
+    private final PasswordCheck passwordCheck;
+
+    private ConversationInput(String raw, String replyId) {
+        this.replyId = replyId;
+        this.raw = raw != null ? raw : "";
+        this.text = this.raw.trim();
+        this.normalized = text.toLowerCase(Locale.ROOT);
+
+        int space = indexOfWhitespace(text);
+        this.command = space < 0 ? normalized : normalized.substring(0, space);
+        this.argument = space < 0 ? "" : text.substring(space + 1).trim();
+        this.passwordHash = null;
+        this.passwordCheck = null;
+    }
+
+    private ConversationInput(ConversationInput input, String passwordHash, PasswordCheck passwordCheck) {
+        this.replyId = input.replyId;
+        this.raw = input.raw;
+        this.text = input.text;
+        this.normalized = input.normalized;
+        this.command = input.command;
+        this.argument = input.argument;
+        this.passwordHash = passwordHash;
+        this.passwordCheck = passwordCheck;
+    }
+
+    public static ConversationInput of(String messageText) {
+        return new ConversationInput(messageText, null);
+    }
+
+    public static ConversationInput of(String messageText, String replyId) {
+        return new ConversationInput(messageText, replyId);
+    }
+
+    /**
+     * This input carrying the hash of the password it contains
+     */
+    public ConversationInput withPasswordHash(String hash) {
+        return new ConversationInput(this, hash, null);
+    }
+
+    /**
+     * This input carrying the result of checking the password it contains
+     */
+    public ConversationInput withPasswordCheck(PasswordCheck check) {
+        return new ConversationInput(this, null, check);
+    }
+
+    /**
+     * Message exactly as received
+     */
+    public String raw() {
+        return raw;
+    }
+
+    /**
+     * Trimmed message, original case
+     */
+    public String text() {
+        return text;
+    }
+
+    /**
+     * Trimmed, lower-cased message
+     */
+    public String normalized() {
+        return normalized;
+    }
+
+    /**
+     * First word of the normalized message
+     */
+    public String command() {
+        return command;
+    }
+
+    /**
+     * Everything after the first word, trimmed, original case
+     */
+    public String argument() {
+        return argument;
+    }
+
+    /**
+     * Id of the tapped button or list row, null for typed messages
+     */
+    public String replyId() {
+        return replyId;
+    }
+
+    /**
+     * Value of a reply id of the given kind, e.g. "42" for kind "tutor" and id
+     * "tutor:42"; null for typed messages and replies of other kinds
+     */
+    public String reply(String kind) {
+        if (replyId == null || replyId.length() <= kind.length()
+                || !replyId.startsWith(kind) || replyId.charAt(kind.length()) != ':') {
+            return null;
+        }
+        return replyId.substring(kind.length() + 1);
+    }
+
+    /**
+     * Numeric value of a reply id of the given kind, or null if there is none
+     */
+    public Long replyNumber(String kind) {
+        String value = reply(kind);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Hash of the password in this message, or null if it was not hashed in time
+     */
+    public String passwordHash() {
+        return passwordHash;
+    }
+
+    /**
+     * Result of checking the password in this message, or null if it was not
+     * checked in time
+     */
+    public PasswordCheck passwordCheck() {
+        return passwordCheck;
+    }
+
+    public boolean isReply(String kind, String value) {
+        return value.equals(reply(kind));
+    }
+
+    public boolean is(String word) {
+        return normalized.equals(word);
+    }
+
+    public boolean matches(Pattern pattern) {
+        return pattern.matcher(normalized).matches();
+    }
+
+    /**
+     * True for "word something", i.e. the command followed by a non-empty argument
+     */
+    public boolean hasCommand(String word) {
+        return command.equals(word) && !argument.isEmpty();
+    }
+
+    private static int indexOfWhitespace(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.isWhitespace(value.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
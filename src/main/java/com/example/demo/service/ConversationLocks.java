@@ -0,0 +1,37 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks keyed by phone number, so messages from one user are handled
+ * one at a time while different users rarely contend. The stripe count is a
+ * power of two, by default four per core.
+ */
+@Component
+public class ConversationLocks {
+
+    private final ReentrantLock[] stripes;
+
+    public ConversationLocks(@Value("${conversation.lock.stripes:0}") int configuredStripes) {
+        int wanted = configuredStripes > 0 ? configuredStripes : Runtime.getRuntime().availableProcessors() * 4;
+        int size = Integer.highestOneBit(Math.max(wanted - 1, 1)) << 1;
+
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock forPhoneNumber(String phoneNumber) {
+        int hash = phoneNumber.hashCode();
+        // Spread the high bits so numbers differing only in the last digits use different stripes
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+}
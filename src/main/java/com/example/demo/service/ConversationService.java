@@ -1,19 +1,31 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.ListCursor;
+import com.example.demo.dto.PasswordCheck;
+import com.example.demo.dto.TutorCandidate;
 import com.example.demo.entity.*;
 import com.example.demo.repository.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -24,17 +36,39 @@ public class ConversationService {
 
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
 
+    // WhatsApp lists hold at most 10 rows; one is kept for the "more" row
+    private static final int LIST_PAGE_SIZE = 9;
+    private static final int SESSION_PAGE_SIZE = 5;
+    private static final int MIN_PASSWORD_LENGTH = 6;
+
+    private static final String CURSOR_SUBJECTS = "subjects";
+    private static final String CURSOR_TUTORS = "tutors";
+    private static final String CURSOR_UPCOMING = "upcoming";
+    private static final String CURSOR_PENDING = "pending";
+
+    @Autowired
+    private UserSessionStore sessionStore;
+
+    @Autowired
+    private ConversationLocks conversationLocks;
+
     @Autowired
-    private UserSessionRepository sessionRepository;
+    private MessageTemplates messageTemplates;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private PasswordService passwordService;
+
     @Autowired
     private MetaWhatsAppService metaWhatsAppService;
 
     @Autowired
-    private SubjectRepository subjectRepository;
+    private SubjectCatalog subjectCatalog;
 
     @Autowired
     private TutorSubjectRepository tutorSubjectRepository;
@@ -51,95 +85,158 @@ public class ConversationService {
     @Autowired
     private RatingRepository ratingRepository;
 
-    @Transactional
-    public void processMessage(String phoneNumber, String messageText) {
-        logger.info("Processing message from {}: {}", phoneNumber, messageText);
+    @Autowired
+    private RatingService ratingService;
+
+    /**
+     * State table: each conversation state maps to the handler for messages
+     * received in that state. States without an entry ignore input.
+     */
+    private final Map<UserSession.ConversationState, ConversationHandler> handlers =
+            new EnumMap<>(UserSession.ConversationState.class);
+
+    private final TransactionTemplate transaction;
+
+    public ConversationService(PlatformTransactionManager transactionManager) {
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void init() {
+        handlers.put(UserSession.ConversationState.INITIAL, this::handleInitialMessage);
+        handlers.put(UserSession.ConversationState.AWAITING_ROLE, this::handleRoleSelection);
+        handlers.put(UserSession.ConversationState.AWAITING_ACTION, this::handleActionSelection);
+        handlers.put(UserSession.ConversationState.REGISTER_NAME, this::handleRegistrationName);
+        handlers.put(UserSession.ConversationState.REGISTER_EMAIL, this::handleRegistrationEmail);
+        handlers.put(UserSession.ConversationState.REGISTER_PASSWORD, this::handleRegistrationPassword);
+        handlers.put(UserSession.ConversationState.LOGIN_PASSWORD, this::handleLoginPassword);
+        handlers.put(UserSession.ConversationState.AUTHENTICATED, this::handleAuthenticatedUser);
+        // Student booking flow
+        handlers.put(UserSession.ConversationState.SELECTING_SUBJECT, this::handleSubjectSelection);
+        handlers.put(UserSession.ConversationState.SELECTING_TUTOR, this::handleTutorSelection);
+        handlers.put(UserSession.ConversationState.SELECTING_DATETIME, this::handleDateTimeSelection);
+        handlers.put(UserSession.ConversationState.SELECTING_DURATION, this::handleDurationSelection);
+        handlers.put(UserSession.ConversationState.SELECTING_TYPE, this::handleTypeSelection);
+        handlers.put(UserSession.ConversationState.CONFIRMING_BOOKING, this::handleBookingConfirmation);
+        // Session management
+        handlers.put(UserSession.ConversationState.VIEWING_SESSIONS, this::handleSessionViewing);
+        handlers.put(UserSession.ConversationState.CANCELING_SESSION, this::handleSessionCancellation);
+        // Rating flow
+        handlers.put(UserSession.ConversationState.RATING_SESSION, this::handleSessionRating);
+        handlers.put(UserSession.ConversationState.WRITING_REVIEW, this::handleReviewWriting);
+        // Tutor flows
+        handlers.put(UserSession.ConversationState.RESPONDING_TO_BOOKING, this::handleBookingResponse);
+        handlers.put(UserSession.ConversationState.UPDATING_AVAILABILITY, this::handleAvailabilityUpdate);
+    }
+
+    /**
+     * Handler registered for a state, or null if the state ignores input
+     */
+    ConversationHandler handlerFor(UserSession.ConversationState state) {
+        return handlers.get(state);
+    }
+
+    /**
+     * Handle one inbound message. replyId is the id of the tapped button or
+     * list row, or null for typed messages.
+     * Messages from the same phone number are handled one at a time, so each
+     * sees the state left by the previous one: the phone's lock is taken
+     * before the transaction opens and released only after it has committed
+     * or rolled back.
+     * Passwords are hashed or verified before the transaction opens, so no
+     * connection is held while BCrypt runs.
+     */
+    public void processMessage(String phoneNumber, String messageText, String replyId) {
+        ReentrantLock lock = conversationLocks.forPhoneNumber(phoneNumber);
+        lock.lock();
+        try {
+            // Get or create session
+            UserSession session = sessionStore.get(phoneNumber);
+            ConversationInput input = preparePassword(session, ConversationInput.of(messageText, replyId));
+
+            transaction.executeWithoutResult(status -> handleMessage(session, input));
+        } finally {
+            lock.unlock();
+        }
+    }
 
-        // Get or create session
-        UserSession session = sessionRepository.findByPhoneNumber(phoneNumber)
-                .orElseGet(() -> {
-                    UserSession newSession = new UserSession(phoneNumber);
-                    return sessionRepository.save(newSession);
-                });
+    private void handleMessage(UserSession session, ConversationInput input) {
+        String phoneNumber = session.getPhoneNumber();
+
+        logger.info("Processing message from {}: {}", phoneNumber,
+                expectsPassword(session) ? "[password]" : input.raw());
 
         session.updateLastInteraction();
 
-        // Handle message based on current state
-        switch (session.getState()) {
-            case INITIAL:
-                handleInitialMessage(session, messageText);
-                break;
-            case AWAITING_ROLE:
-                handleRoleSelection(session, messageText);
-                break;
-            case AWAITING_ACTION:
-                handleActionSelection(session, messageText);
-                break;
-            case REGISTER_NAME:
-                handleRegistrationName(session, messageText);
-                break;
-            case REGISTER_EMAIL:
-                handleRegistrationEmail(session, messageText);
-                break;
-            case REGISTER_PASSWORD:
-                handleRegistrationPassword(session, messageText);
-                break;
-            case LOGIN_PASSWORD:
-                handleLoginPassword(session, messageText);
-                break;
-            case AUTHENTICATED:
-                handleAuthenticatedUser(session, messageText);
-                break;
-            // Student booking flow
-            case SELECTING_SUBJECT:
-                handleSubjectSelection(session, messageText);
-                break;
-            case SELECTING_TUTOR:
-                handleTutorSelection(session, messageText);
-                break;
-            case SELECTING_DATETIME:
-                handleDateTimeSelection(session, messageText);
-                break;
-            case SELECTING_DURATION:
-                handleDurationSelection(session, messageText);
-                break;
-            case SELECTING_TYPE:
-                handleTypeSelection(session, messageText);
-                break;
-            case CONFIRMING_BOOKING:
-                handleBookingConfirmation(session, messageText);
-                break;
-            // Session management
-            case VIEWING_SESSIONS:
-                handleSessionViewing(session, messageText);
-                break;
-            case CANCELING_SESSION:
-                handleSessionCancellation(session, messageText);
-                break;
-            // Rating flow
-            case RATING_SESSION:
-                handleSessionRating(session, messageText);
-                break;
-            case WRITING_REVIEW:
-                handleReviewWriting(session, messageText);
-                break;
-            // Tutor flows
-            case RESPONDING_TO_BOOKING:
-                handleBookingResponse(session, messageText);
-                break;
-            case UPDATING_AVAILABILITY:
-                handleAvailabilityUpdate(session, messageText);
-                break;
-        }
-
-        sessionRepository.save(session);
-    }
-
-    private void handleInitialMessage(UserSession session, String messageText) {
-        String normalizedMessage = messageText.trim().toLowerCase();
+        try {
+            ConversationHandler handler = handlers.get(session.getState());
+            if (handler != null) {
+                handler.handle(session, input);
+            } else {
+                logger.warn("No handler for conversation state {} ({})", session.getState(), phoneNumber);
+            }
+        } finally {
+            // Written after commit; a rollback discards the in-memory changes
+            sessionStore.save(session);
+        }
+    }
+
+    private static boolean expectsPassword(UserSession session) {
+        return session.getState() == UserSession.ConversationState.REGISTER_PASSWORD
+                || session.getState() == UserSession.ConversationState.LOGIN_PASSWORD;
+    }
+
+    /**
+     * Hash or verify the password a message in a password state carries.
+     * Too-short registration passwords are left to the handler to reject.
+     */
+    private ConversationInput preparePassword(UserSession session, ConversationInput input) {
+        String password = input.text();
 
+        if (session.getState() == UserSession.ConversationState.REGISTER_PASSWORD
+                && password.length() >= MIN_PASSWORD_LENGTH) {
+            return input.withPasswordHash(awaitPassword(passwordService.hash(password), session.getPhoneNumber()));
+        }
+
+        if (session.getState() == UserSession.ConversationState.LOGIN_PASSWORD) {
+            Optional<User> user = userCache.findByPhoneNumber(session.getPhoneNumber());
+            if (user.isPresent()) {
+                return input.withPasswordCheck(awaitPassword(
+                        passwordService.verify(password, user.get().getPassword()), session.getPhoneNumber()));
+            }
+        }
+        return input;
+    }
+
+    /**
+     * Wait for a hashing task, or return null if it failed or took too long.
+     * The hashing itself runs on PasswordService's pool.
+     */
+    private <T> T awaitPassword(CompletableFuture<T> future, String phoneNumber) {
+        try {
+            return future.get(passwordService.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Password check for {} did not complete: {}", phoneNumber, e.toString());
+        }
+        future.cancel(false);
+        return null;
+    }
+
+    /**
+     * The signed-in user for this conversation, served from the user cache
+     */
+    private Optional<User> currentUser(UserSession session) {
+        if (session.getUserId() != null) {
+            return userCache.findById(session.getUserId());
+        }
+        return userCache.findByPhoneNumber(session.getPhoneNumber());
+    }
+
+    private void handleInitialMessage(UserSession session, ConversationInput input) {
         // Check if it's a greeting or start command
-        if (normalizedMessage.matches("hi|hello|hey|start|menu")) {
+        if (input.matches(ConversationCommands.GREETING)) {
             sendWelcomeMessage(session);
         } else {
             // Any other message also triggers welcome
@@ -148,27 +245,22 @@ public class ConversationService {
     }
 
     private void sendWelcomeMessage(UserSession session) {
-        String welcomeMessage = "🎓 *Welcome to TutorMate!*\n\n" +
-                "Your learning companion for connecting students and tutors.\n\n" +
-                "Please select your role:\n" +
-                "1️⃣ TUTOR - Share your knowledge\n" +
-                "2️⃣ STUDENT - Find help";
+        String welcomeMessage = messageTemplates.render("conversation.welcome");
 
         metaWhatsAppService.sendTextMessage(session.getPhoneNumber(), welcomeMessage);
         session.setState(UserSession.ConversationState.AWAITING_ROLE);
     }
 
-    private void handleRoleSelection(UserSession session, String messageText) {
-        String normalizedMessage = messageText.trim().toLowerCase();
+    private void handleRoleSelection(UserSession session, ConversationInput input) {
         String selectedRole = null;
 
-        if (normalizedMessage.matches("1|tutor")) {
+        if (input.matches(ConversationCommands.ROLE_TUTOR)) {
             selectedRole = "TUTOR";
-        } else if (normalizedMessage.matches("2|student")) {
+        } else if (input.matches(ConversationCommands.ROLE_STUDENT)) {
             selectedRole = "STUDENT";
         } else {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "❌ Invalid selection. Please reply with:\n1 or TUTOR\n2 or STUDENT");
+                    messageTemplates.render("conversation.role.invalid"));
             return;
         }
 
@@ -177,33 +269,25 @@ public class ConversationService {
     }
 
     private void sendActionMenu(UserSession session, String role) {
-        String roleEmoji = role.equals("TUTOR") ? "👨‍🏫" : "👨‍🎓";
+        String roleEmoji = messageTemplates.render(role.equals("TUTOR")
+                ? "conversation.role.emoji.tutor" : "conversation.role.emoji.student");
 
-        String actionMessage = String.format(
-                "%s *%s Account*\n\n" +
-                        "What would you like to do?\n\n" +
-                        "1️⃣ REGISTER - Create a new account\n" +
-                        "2️⃣ LOGIN - Access your account\n" +
-                        "3️⃣ STATUS - Check account status",
-                roleEmoji, role);
+        String actionMessage = messageTemplates.render("conversation.action-menu", roleEmoji, role);
 
         metaWhatsAppService.sendTextMessage(session.getPhoneNumber(), actionMessage);
         session.setState(UserSession.ConversationState.AWAITING_ACTION);
     }
 
-    private void handleActionSelection(UserSession session, String messageText) {
-        String normalizedMessage = messageText.trim().toLowerCase();
-
-        if (normalizedMessage.matches("1|register")) {
+    private void handleActionSelection(UserSession session, ConversationInput input) {
+        if (input.matches(ConversationCommands.ACTION_REGISTER)) {
             startRegistration(session);
-        } else if (normalizedMessage.matches("2|login")) {
+        } else if (input.matches(ConversationCommands.ACTION_LOGIN)) {
             startLogin(session);
-        } else if (normalizedMessage.matches("3|status")) {
+        } else if (input.matches(ConversationCommands.ACTION_STATUS)) {
             checkStatus(session);
         } else {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "❌ Invalid selection. Please reply with:\n" +
-                            "1 or REGISTER\n2 or LOGIN\n3 or STATUS");
+                    messageTemplates.render("conversation.action.invalid"));
         }
     }
 
@@ -211,87 +295,81 @@ public class ConversationService {
         // Check if user already exists
         if (userRepository.existsByPhoneNumber(session.getPhoneNumber())) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "⚠️ An account with this phone number already exists.\n\n" +
-                            "Please use LOGIN option instead.");
+                    messageTemplates.render("conversation.register.exists"));
             sendActionMenu(session, session.getSelectedRole());
             return;
         }
 
         metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                "📝 *Registration - Step 1 of 3*\n\n" +
-                        "Please enter your full name:");
+                messageTemplates.render("conversation.register.name-prompt"));
         session.setState(UserSession.ConversationState.REGISTER_NAME);
     }
 
-    private void handleRegistrationName(UserSession session, String messageText) {
-        String fullName = messageText.trim();
+    private void handleRegistrationName(UserSession session, ConversationInput input) {
+        String fullName = input.text();
 
         if (fullName.length() < 2) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "❌ Name is too short. Please enter your full name:");
+                    messageTemplates.render("conversation.register.name-too-short"));
             return;
         }
 
         session.setTempFullName(fullName);
         metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                "📝 *Registration - Step 2 of 3*\n\n" +
-                        "Please enter your email address:");
+                messageTemplates.render("conversation.register.email-prompt"));
         session.setState(UserSession.ConversationState.REGISTER_EMAIL);
     }
 
-    private void handleRegistrationEmail(UserSession session, String messageText) {
-        String email = messageText.trim().toLowerCase();
+    private void handleRegistrationEmail(UserSession session, ConversationInput input) {
+        String email = input.normalized();
 
         if (!EMAIL_PATTERN.matcher(email).matches()) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "❌ Invalid email format. Please enter a valid email address:");
+                    messageTemplates.render("conversation.register.email-invalid"));
             return;
         }
 
         if (userRepository.existsByEmail(email)) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "⚠️ This email is already registered.\n\n" +
-                            "Please enter a different email address:");
+                    messageTemplates.render("conversation.register.email-taken"));
             return;
         }
 
         session.setTempEmail(email);
         metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                "📝 *Registration - Step 3 of 3*\n\n" +
-                        "Please create a password (minimum 6 characters):");
+                messageTemplates.render("conversation.register.password-prompt", MIN_PASSWORD_LENGTH));
         session.setState(UserSession.ConversationState.REGISTER_PASSWORD);
     }
 
-    private void handleRegistrationPassword(UserSession session, String messageText) {
-        String password = messageText.trim();
+    private void handleRegistrationPassword(UserSession session, ConversationInput input) {
+        String password = input.text();
 
-        if (password.length() < 6) {
+        if (password.length() < MIN_PASSWORD_LENGTH) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "❌ Password is too short. Please enter at least 6 characters:");
+                    messageTemplates.render("conversation.register.password-too-short", MIN_PASSWORD_LENGTH));
             return;
         }
 
-        session.setTempPassword(password);
+        String passwordHash = input.passwordHash();
+        if (passwordHash == null) {
+            metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
+                    messageTemplates.render("conversation.password.busy"));
+            return;
+        }
 
         // Create user account
         User newUser = new User(
                 session.getPhoneNumber(),
                 session.getTempFullName(),
                 User.UserRole.valueOf(session.getSelectedRole()),
-                session.getTempPassword());
+                passwordHash);
         newUser.setEmail(session.getTempEmail());
         newUser.setStatus(User.UserStatus.ACTIVE);
 
-        userRepository.save(newUser);
+        newUser = userCache.save(newUser);
+        session.setUserId(newUser.getId());
 
-        String successMessage = String.format(
-                "✅ *Registration Successful!*\n\n" +
-                        "Welcome to TutorMate, %s!\n\n" +
-                        "Your account details:\n" +
-                        "📱 Phone: %s\n" +
-                        "📧 Email: %s\n" +
-                        "👤 Role: %s\n\n" +
-                        "You are now logged in. Type MENU to see available options.",
+        String successMessage = messageTemplates.render("conversation.registered",
                 session.getTempFullName(),
                 session.getPhoneNumber(),
                 session.getTempEmail(),
@@ -304,12 +382,11 @@ public class ConversationService {
     }
 
     private void startLogin(UserSession session) {
-        Optional<User> userOpt = userRepository.findByPhoneNumber(session.getPhoneNumber());
+        Optional<User> userOpt = userCache.findByPhoneNumber(session.getPhoneNumber());
 
         if (userOpt.isEmpty()) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "❌ No account found with this phone number.\n\n" +
-                            "Please use REGISTER option to create an account.");
+                    messageTemplates.render("conversation.no-account"));
             sendActionMenu(session, session.getSelectedRole());
             return;
         }
@@ -319,9 +396,7 @@ public class ConversationService {
         // Check if role matches
         if (!user.getRole().name().equals(session.getSelectedRole())) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    String.format(
-                            "⚠️ This phone number is registered as a %s, not a %s.\n\n" +
-                                    "Please select the correct role from the main menu.",
+                    messageTemplates.render("conversation.login.wrong-role",
                             user.getRole().name(),
                             session.getSelectedRole()));
             session.setState(UserSession.ConversationState.INITIAL);
@@ -330,436 +405,520 @@ public class ConversationService {
         }
 
         metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                String.format("🔐 Welcome back, %s!\n\nPlease enter your password:", user.getFullName()));
+                messageTemplates.render("conversation.login.password-prompt", user.getFullName()));
         session.setState(UserSession.ConversationState.LOGIN_PASSWORD);
     }
 
-    private void handleLoginPassword(UserSession session, String messageText) {
-        String password = messageText.trim();
-
-        Optional<User> userOpt = userRepository.findByPhoneNumber(session.getPhoneNumber());
+    private void handleLoginPassword(UserSession session, ConversationInput input) {
+        Optional<User> userOpt = userCache.findByPhoneNumber(session.getPhoneNumber());
 
         if (userOpt.isEmpty()) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "❌ Session expired. Please start over by typing MENU");
+                    messageTemplates.render("conversation.login.expired"));
             session.setState(UserSession.ConversationState.INITIAL);
             return;
         }
 
         User user = userOpt.get();
 
-        if (user.getPassword().equals(password)) {
+        PasswordCheck check = input.passwordCheck();
+        if (check == null) {
+            metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
+                    messageTemplates.render("conversation.password.busy"));
+            return;
+        }
+
+        if (check.matches()) {
+            if (check.needsUpgrade()) {
+                // Legacy plaintext or lower-cost hash, replaced now that the password is known
+                user.setPassword(check.upgradedHash());
+            }
             user.setLastLoginAt(LocalDateTime.now());
-            userRepository.save(user);
-
-            String successMessage = String.format(
-                    "✅ *Login Successful!*\n\n" +
-                            "Welcome back, %s!\n\n" +
-                            "Your account:\n" +
-                            "📱 Phone: %s\n" +
-                            "👤 Role: %s\n" +
-                            "📊 Status: %s\n\n" +
-                            "Type MENU to see available options.",
+            userCache.save(user);
+
+            String successMessage = messageTemplates.render("conversation.login.success",
                     user.getFullName(),
                     user.getPhoneNumber(),
                     user.getRole().name(),
                     user.getStatus().name());
 
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(), successMessage);
+            session.setUserId(user.getId());
             session.setState(UserSession.ConversationState.AUTHENTICATED);
         } else {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "❌ Incorrect password. Please try again:");
+                    messageTemplates.render("conversation.login.wrong-password"));
         }
     }
 
     private void checkStatus(UserSession session) {
-        Optional<User> userOpt = userRepository.findByPhoneNumber(session.getPhoneNumber());
+        Optional<User> userOpt = userCache.findByPhoneNumber(session.getPhoneNumber());
 
         if (userOpt.isEmpty()) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "❌ No account found with this phone number.\n\n" +
-                            "Please use REGISTER option to create an account.");
+                    messageTemplates.render("conversation.no-account"));
             sendActionMenu(session, session.getSelectedRole());
             return;
         }
 
         User user = userOpt.get();
 
-        String statusMessage = String.format(
-                "📊 *Account Status*\n\n" +
-                        "Name: %s\n" +
-                        "Phone: %s\n" +
-                        "Email: %s\n" +
-                        "Role: %s\n" +
-                        "Status: %s\n" +
-                        "Member since: %s\n" +
-                        "Last login: %s\n\n" +
-                        "Type MENU to return to main menu.",
+        String statusMessage = messageTemplates.render("conversation.account-status",
                 user.getFullName(),
                 user.getPhoneNumber(),
                 user.getEmail(),
                 user.getRole().name(),
                 user.getStatus().name(),
-                user.getCreatedAt().toLocalDate(),
-                user.getLastLoginAt() != null ? user.getLastLoginAt().toLocalDate().toString() : "Never");
+                user.getCreatedAt(),
+                user.getLastLoginAt() != null
+                        ? user.getLastLoginAt().toLocalDate().toString()
+                        : messageTemplates.render("conversation.account-status.never"));
 
         metaWhatsAppService.sendTextMessage(session.getPhoneNumber(), statusMessage);
         sendActionMenu(session, session.getSelectedRole());
     }
 
-    private void handleAuthenticatedUser(UserSession session, String messageText) {
-        String normalizedMessage = messageText.trim().toLowerCase();
-
-        Optional<User> userOpt = userRepository.findByPhoneNumber(session.getPhoneNumber());
+    private void handleAuthenticatedUser(UserSession session, ConversationInput input) {
+        Optional<User> userOpt = currentUser(session);
 
         if (userOpt.isEmpty()) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "❌ Session expired. Please type MENU to start over.");
+                    messageTemplates.render("conversation.session-expired"));
+            session.setUserId(null);
             session.setState(UserSession.ConversationState.INITIAL);
             return;
         }
 
         User user = userOpt.get();
 
+        // Menu buttons carry the command word they stand for
+        String tappedCommand = input.reply(ConversationCommands.REPLY_COMMAND);
+        if (tappedCommand != null) {
+            input = ConversationInput.of(tappedCommand);
+        }
+
         // Common commands
-        if (normalizedMessage.equals("menu")) {
+        if (input.reply(ConversationCommands.REPLY_REVIEW) != null) {
+            rateFromReviewRequest(session, user, input.reply(ConversationCommands.REPLY_REVIEW));
+        } else if (input.is("menu")) {
             sendAuthenticatedMenu(session, user);
-        } else if (normalizedMessage.equals("logout")) {
+        } else if (input.is("logout")) {
             handleLogout(session);
-        } else if (normalizedMessage.equals("profile")) {
+        } else if (input.is("profile")) {
             showProfile(session, user);
-        } else if (normalizedMessage.equals("help")) {
+        } else if (input.is("help")) {
             sendHelpMessage(session);
         }
         // Student commands
         else if (user.getRole() == User.UserRole.STUDENT) {
-            if (normalizedMessage.equals("book") || normalizedMessage.equals("1")) {
-                startBookingFlow(session, user);
-            } else if (normalizedMessage.matches("sessions?") || normalizedMessage.equals("2")) {
-                showMySessions(session, user);
-            } else if (normalizedMessage.startsWith("find ")) {
-                String subject = messageText.substring(5).trim();
-                findTutorsForSubject(session, user, subject);
-            } else if (normalizedMessage.startsWith("cancel ")) {
-                String sessionId = messageText.substring(7).trim();
-                initiateCancelSession(session, user, sessionId);
-            } else if (normalizedMessage.startsWith("rate ")) {
-                String sessionId = messageText.substring(5).trim();
-                initiateRateSession(session, user, sessionId);
+            if (input.matches(ConversationCommands.STUDENT_BOOK)) {
+                startBookingFlow(session);
+            } else if (input.matches(ConversationCommands.STUDENT_SESSIONS)) {
+                showMySessions(session, user, null);
+            } else if (input.hasCommand("find")) {
+                findTutorsForSubject(session, user, input.argument());
+            } else if (input.hasCommand("cancel")) {
+                initiateCancelSession(session, user, input.argument());
+            } else if (input.hasCommand("rate")) {
+                initiateRateSession(session, user, input.argument());
             } else {
                 sendStudentHelpMessage(session);
             }
         }
         // Tutor commands
         else if (user.getRole() == User.UserRole.TUTOR) {
-            if (normalizedMessage.equals("sessions") || normalizedMessage.equals("1")) {
-                showTutorSessions(session, user);
-            } else if (normalizedMessage.equals("pending") || normalizedMessage.equals("2")) {
-                showPendingBookings(session, user);
-            } else if (normalizedMessage.equals("availability") || normalizedMessage.equals("3")) {
+            if (input.matches(ConversationCommands.TUTOR_SESSIONS)) {
+                showTutorSessions(session, user, null);
+            } else if (input.matches(ConversationCommands.TUTOR_PENDING)) {
+                showPendingBookings(session, user, null);
+            } else if (input.matches(ConversationCommands.TUTOR_AVAILABILITY)) {
                 updateAvailability(session, user);
-            } else if (normalizedMessage.equals("earnings") || normalizedMessage.equals("4")) {
+            } else if (input.matches(ConversationCommands.TUTOR_EARNINGS)) {
                 showEarnings(session, user);
-            } else if (normalizedMessage.startsWith("accept ")) {
-                String sessionId = messageText.substring(7).trim();
-                acceptBooking(session, user, sessionId);
-            } else if (normalizedMessage.startsWith("decline ")) {
-                String sessionId = messageText.substring(8).trim();
-                declineBooking(session, user, sessionId);
-            } else if (normalizedMessage.startsWith("complete ")) {
-                String sessionId = messageText.substring(9).trim();
-                completeSession(session, user, sessionId);
+            } else if (input.hasCommand("accept")) {
+                acceptBooking(session, user, input.argument());
+            } else if (input.hasCommand("decline")) {
+                declineBooking(session, user, input.argument());
+            } else if (input.hasCommand("complete")) {
+                completeSession(session, user, input.argument());
             } else {
                 sendTutorHelpMessage(session);
             }
         } else {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "Type MENU to see available options");
+                    messageTemplates.render("conversation.menu-hint"));
         }
     }
 
     private void sendAuthenticatedMenu(UserSession session, User user) {
-        String roleEmoji = user.getRole() == User.UserRole.TUTOR ? "👨‍🏫" : "👨‍🎓";
+        String roleEmoji = messageTemplates.render(user.getRole() == User.UserRole.TUTOR
+                ? "conversation.role.emoji.tutor" : "conversation.role.emoji.student");
 
         if (user.getRole() == User.UserRole.STUDENT) {
-            String menuMessage = String.format(
-                    "%s *Student Dashboard*\n\n" +
-                            "Hello, %s! 👋\n\n" +
-                            "What would you like to do?",
+            String menuMessage = messageTemplates.render("conversation.dashboard.student",
                     roleEmoji,
                     user.getFullName());
 
-            List<String> buttons = new ArrayList<>();
-            buttons.add("📚 Book a Session");
-            buttons.add("📅 View My Sessions");
-            buttons.add("👤 Profile");
+            List<MetaWhatsAppService.ListOption> buttons = new ArrayList<>();
+            buttons.add(commandButton("book", "conversation.button.book"));
+            buttons.add(commandButton("sessions", "conversation.button.student-sessions"));
+            buttons.add(commandButton("profile", "conversation.button.profile"));
 
-            metaWhatsAppService.sendMessageWithButtons(session.getPhoneNumber(), menuMessage, buttons);
+            metaWhatsAppService.sendReplyButtons(session.getPhoneNumber(), menuMessage, buttons);
 
             // Send additional commands
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "\n*Quick Commands:*\n" +
-                            "• BOOK - Start booking\n" +
-                            "• SESSIONS - View sessions\n" +
-                            "• FIND [subject] - Find tutors\n" +
-                            "• CANCEL [id] - Cancel session\n" +
-                            "• RATE [id] - Rate session\n" +
-                            "• PROFILE - Your profile\n" +
-                            "• LOGOUT - Sign out");
+                    messageTemplates.render("conversation.quick-commands.student"));
         } else {
-            String menuMessage = String.format(
-                    "%s *Tutor Dashboard*\n\n" +
-                            "Hello, %s! 👋\n\n" +
-                            "What would you like to do?",
+            String menuMessage = messageTemplates.render("conversation.dashboard.tutor",
                     roleEmoji,
                     user.getFullName());
 
-            List<String> buttons = new ArrayList<>();
-            buttons.add("📅 My Sessions");
-            buttons.add("🔔 Pending Requests");
-            buttons.add("⏰ Update Availability");
+            List<MetaWhatsAppService.ListOption> buttons = new ArrayList<>();
+            buttons.add(commandButton("sessions", "conversation.button.tutor-sessions"));
+            buttons.add(commandButton("pending", "conversation.button.pending"));
+            buttons.add(commandButton("availability", "conversation.button.availability"));
 
-            metaWhatsAppService.sendMessageWithButtons(session.getPhoneNumber(), menuMessage, buttons);
+            metaWhatsAppService.sendReplyButtons(session.getPhoneNumber(), menuMessage, buttons);
 
             // Send additional commands
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "\n*Quick Commands:*\n" +
-                            "• SESSIONS - View sessions\n" +
-                            "• PENDING - Pending bookings\n" +
-                            "• AVAILABILITY - Update schedule\n" +
-                            "• EARNINGS - View earnings\n" +
-                            "• ACCEPT [id] - Accept booking\n" +
-                            "• DECLINE [id] - Decline booking\n" +
-                            "• COMPLETE [id] - Mark complete\n" +
-                            "• PROFILE - Your profile\n" +
-                            "• LOGOUT - Sign out");
+                    messageTemplates.render("conversation.quick-commands.tutor"));
         }
     }
 
     private void showProfile(UserSession session, User user) {
-        String profileMessage = String.format(
-                "👤 *Your Profile*\n\n" +
-                        "Name: %s\n" +
-                        "Phone: %s\n" +
-                        "Email: %s\n" +
-                        "Role: %s\n" +
-                        "Status: %s\n" +
-                        "Member since: %s\n\n" +
-                        "Type MENU to return.",
+        String profileMessage = messageTemplates.render("conversation.profile",
                 user.getFullName(),
                 user.getPhoneNumber(),
                 user.getEmail(),
                 user.getRole().name(),
                 user.getStatus().name(),
-                user.getCreatedAt().toLocalDate());
+                user.getCreatedAt());
 
         metaWhatsAppService.sendTextMessage(session.getPhoneNumber(), profileMessage);
     }
 
     private void handleLogout(UserSession session) {
         metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                "👋 You have been logged out successfully.\n\n" +
-                        "Type HI or MENU to start again.");
+                messageTemplates.render("conversation.logged-out"));
+        session.setUserId(null);
         session.setState(UserSession.ConversationState.INITIAL);
     }
 
     private void sendHelpMessage(UserSession session) {
-        String helpMessage = "ℹ️ *TutorMate Help*\n\n" +
-                "*Getting Started:*\n" +
-                "• Type HI or MENU to start\n" +
-                "• Choose your role (Tutor/Student)\n" +
-                "• Register or Login\n\n" +
-                "*Commands:*\n" +
-                "• MENU - Main menu\n" +
-                "• PROFILE - Your profile\n" +
-                "• STATUS - Account status\n" +
-                "• LOGOUT - Sign out\n" +
-                "• HELP - This message\n\n" +
-                "Need assistance? Contact support.";
+        String helpMessage = messageTemplates.render("conversation.help");
 
         metaWhatsAppService.sendTextMessage(session.getPhoneNumber(), helpMessage);
     }
 
     // ============ STUDENT WORKFLOW METHODS ============
 
-    private void startBookingFlow(UserSession session, User student) {
-        List<Subject> subjects = subjectRepository.findByActiveTrue();
+    private void startBookingFlow(UserSession session) {
+        SubjectCatalog.Snapshot catalog = subjectCatalog.current();
 
-        if (subjects.isEmpty()) {
+        if (catalog.isEmpty()) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "No subjects available at the moment. Please try again later.");
+                    messageTemplates.render("conversation.subjects.none"));
             return;
         }
 
-        List<MetaWhatsAppService.ListOption> options = subjects.stream()
-                .map(s -> new MetaWhatsAppService.ListOption(s.getId().toString(), s.getName(), s.getDescription()))
+        session.setCatalogVersion(catalog.getVersion());
+        sendSubjectPage(session, catalog, 0);
+        session.setState(UserSession.ConversationState.SELECTING_SUBJECT);
+    }
+
+    /**
+     * List one page of subjects starting at offset; selections are numbered from 1 within the page
+     */
+    private void sendSubjectPage(UserSession session, SubjectCatalog.Snapshot catalog, int offset) {
+        List<Subject> subjects = catalog.getSubjects();
+        int end = Math.min(offset + LIST_PAGE_SIZE, subjects.size());
+
+        List<MetaWhatsAppService.ListOption> options = subjects.subList(offset, end).stream()
+                .map(s -> new MetaWhatsAppService.ListOption(
+                        ConversationCommands.replyId(ConversationCommands.REPLY_SUBJECT, s.getId()),
+                        s.getName(), s.getDescription()))
                 .collect(Collectors.toList());
 
+        if (end < subjects.size()) {
+            options.add(nextPageOption(messageTemplates.render("conversation.subjects.more"),
+                    messageTemplates.render("conversation.subjects.more-count", subjects.size() - end)));
+        }
+
         metaWhatsAppService.sendListMessage(session.getPhoneNumber(),
-                "📚 Select a Subject",
-                "Choose the subject you need help with:",
+                messageTemplates.render("conversation.subjects.title"),
+                messageTemplates.render("conversation.subjects.body"),
                 options);
 
-        session.setState(UserSession.ConversationState.SELECTING_SUBJECT);
-        sessionRepository.save(session);
+        session.setListCursor(new ListCursor(CURSOR_SUBJECTS, String.valueOf(offset), 0).encode());
     }
 
-    private void handleSubjectSelection(UserSession session, String messageText) {
+    private void handleSubjectSelection(UserSession session, ConversationInput input) {
         try {
-            int selection = Integer.parseInt(messageText.trim());
-            List<Subject> subjects = subjectRepository.findByActiveTrue();
+            Subject selectedSubject;
+            Long tappedSubjectId = input.replyNumber(ConversationCommands.REPLY_SUBJECT);
+
+            if (tappedSubjectId != null) {
+                // Tapped rows carry the subject id itself
+                selectedSubject = subjectCatalog.findById(tappedSubjectId)
+                        .filter(subject -> Boolean.TRUE.equals(subject.getActive()))
+                        .orElse(null);
+            } else {
+                // Resolve typed numbers against the list the user was shown
+                SubjectCatalog.Snapshot catalog = subjectCatalog.snapshot(session.getCatalogVersion());
+                if (catalog == null) {
+                    metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
+                            messageTemplates.render("conversation.subjects.changed"));
+                    startBookingFlow(session);
+                    return;
+                }
+
+                ListCursor cursor = ListCursor.parse(session.getListCursor(), CURSOR_SUBJECTS);
+                int offset = cursor != null ? Integer.parseInt(cursor.key()) : 0;
+
+                if (ConversationCommands.isNextPage(input)) {
+                    int next = offset + LIST_PAGE_SIZE;
+                    // Past the last page, start again from the top
+                    sendSubjectPage(session, catalog, next < catalog.getSubjects().size() ? next : 0);
+                    return;
+                }
+
+                int selection = Integer.parseInt(input.text());
+                selectedSubject = selection >= 1 && selection <= LIST_PAGE_SIZE
+                        ? catalog.atPosition(offset + selection) : null;
+            }
 
-            if (selection < 1 || selection > subjects.size()) {
+            if (selectedSubject == null) {
                 metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                        "Invalid selection. Please enter a number from the list.");
+                        messageTemplates.render("conversation.selection.invalid"));
                 return;
             }
 
-            Subject selectedSubject = subjects.get(selection - 1);
             session.setTempSubjectId(selectedSubject.getId());
 
             // Find tutors for this subject
-            List<TutorSubject> tutorSubjects = tutorSubjectRepository
-                    .findTutorsForSubjectOrderedByRate(selectedSubject);
+            List<TutorCandidate> candidates = findCandidatePage(selectedSubject.getId(), null);
 
-            if (tutorSubjects.isEmpty()) {
+            if (candidates.isEmpty()) {
                 metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                        "No tutors available for " + selectedSubject.getName() + " at the moment.\n\n" +
-                                "Type BOOK to try another subject.");
+                        messageTemplates.render("conversation.tutors.none", selectedSubject.getName()));
                 session.setState(UserSession.ConversationState.AUTHENTICATED);
-                sessionRepository.save(session);
                 return;
             }
 
-            List<MetaWhatsAppService.ListOption> options = tutorSubjects.stream()
-                    .map(ts -> {
-                        Double avgRating = ratingRepository.calculateAverageRating(ts.getTutor());
-                        String rating = avgRating != null ? String.format("%.1f⭐", avgRating) : "New";
-                        return new MetaWhatsAppService.ListOption(
-                                ts.getTutor().getId().toString(),
-                                ts.getTutor().getFullName(),
-                                String.format("R%.0f/hr • %s • %s", ts.getHourlyRate(), rating,
-                                        ts.getQualifications() != null ? ts.getQualifications() : ""));
-                    })
-                    .collect(Collectors.toList());
-
-            metaWhatsAppService.sendListMessage(session.getPhoneNumber(),
-                    "👨‍🏫 Select a Tutor",
-                    "Choose your tutor for " + selectedSubject.getName() + ":",
-                    options);
-
+            sendTutorPage(session, selectedSubject.getName(), candidates);
             session.setState(UserSession.ConversationState.SELECTING_TUTOR);
-            sessionRepository.save(session);
 
         } catch (NumberFormatException e) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "Please enter a number from the list.");
+                    messageTemplates.render("conversation.selection.not-a-number"));
+        }
+    }
+
+    /**
+     * Up to one page of tutors plus one, so the caller can tell whether another page follows.
+     * Pass the cursor of the last page shown, or null for the first page.
+     */
+    private List<TutorCandidate> findCandidatePage(Long subjectId, ListCursor after) {
+        PageRequest page = PageRequest.of(0, LIST_PAGE_SIZE + 1);
+        if (after == null) {
+            return tutorSubjectRepository.findCandidatesForSubject(subjectId, page);
+        }
+        return tutorSubjectRepository.findCandidatesForSubjectAfter(subjectId,
+                new BigDecimal(after.key()), after.id(), page);
+    }
+
+    /**
+     * List a page of tutors from findCandidatePage, with a "more" row if another page follows
+     */
+    private void sendTutorPage(UserSession session, String subjectName, List<TutorCandidate> candidates) {
+        boolean more = candidates.size() > LIST_PAGE_SIZE;
+        List<TutorCandidate> shown = more ? candidates.subList(0, LIST_PAGE_SIZE) : candidates;
+
+        List<MetaWhatsAppService.ListOption> options = shown.stream()
+                .map(candidate -> {
+                    String rating = rating(candidate.averageRating(), "conversation.rating.new");
+                    return new MetaWhatsAppService.ListOption(
+                            ConversationCommands.replyId(ConversationCommands.REPLY_TUTOR, candidate.tutorId()),
+                            candidate.fullName(),
+                            messageTemplates.render("conversation.tutor-option", candidate.hourlyRate(), rating,
+                                    candidate.qualifications()));
+                })
+                .collect(Collectors.toList());
+
+        if (more) {
+            options.add(nextPageOption(messageTemplates.render("conversation.tutors.more"),
+                    messageTemplates.render("conversation.tutors.more-description")));
+        }
+
+        metaWhatsAppService.sendListMessage(session.getPhoneNumber(),
+                messageTemplates.render("conversation.tutors.title"),
+                messageTemplates.render("conversation.tutors.body", subjectName),
+                options);
+
+        // Selection resolves against exactly these tutors, in this order
+        session.setTempCandidateIds(shown.stream().map(TutorCandidate::tutorId).collect(Collectors.toList()));
+
+        TutorCandidate last = shown.get(shown.size() - 1);
+        session.setListCursor(more
+                ? new ListCursor(CURSOR_TUTORS, last.hourlyRate().toPlainString(), last.tutorId()).encode()
+                : null);
+    }
+
+    private void sendNextTutorPage(UserSession session) {
+        Long subjectId = session.getTempSubjectId();
+        String subjectName = subjectCatalog.findById(subjectId).map(Subject::getName)
+                .orElseGet(() -> messageTemplates.render("conversation.tutors.any-subject"));
+
+        // After the last page, or if the tutors after the cursor have gone, start again from the top
+        ListCursor cursor = ListCursor.parse(session.getListCursor(), CURSOR_TUTORS);
+        List<TutorCandidate> candidates = cursor != null ? findCandidatePage(subjectId, cursor) : List.of();
+        if (candidates.isEmpty()) {
+            candidates = findCandidatePage(subjectId, null);
+        }
+
+        if (candidates.isEmpty()) {
+            metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
+                    messageTemplates.render("conversation.tutors.none", subjectName));
+            session.setState(UserSession.ConversationState.AUTHENTICATED);
+            return;
         }
+
+        sendTutorPage(session, subjectName, candidates);
+    }
+
+    private MetaWhatsAppService.ListOption commandButton(String command, String titleKey) {
+        return new MetaWhatsAppService.ListOption(
+                ConversationCommands.replyId(ConversationCommands.REPLY_COMMAND, command),
+                messageTemplates.render(titleKey));
+    }
+
+    private static MetaWhatsAppService.ListOption nextPageOption(String title, String description) {
+        return new MetaWhatsAppService.ListOption(
+                ConversationCommands.replyId(ConversationCommands.REPLY_PAGE, "next"), title, description);
     }
 
-    private void handleTutorSelection(UserSession session, String messageText) {
+    /**
+     * Average stars for a list row, or the template for tutors nobody has rated yet
+     */
+    private String rating(Double averageRating, String unratedKey) {
+        return averageRating != null
+                ? messageTemplates.render("conversation.rating", averageRating)
+                : messageTemplates.render(unratedKey);
+    }
+
+    private void handleTutorSelection(UserSession session, ConversationInput input) {
         try {
-            Subject subject = subjectRepository.findById(session.getTempSubjectId()).orElseThrow();
-            List<TutorSubject> tutorSubjects = tutorSubjectRepository.findTutorsForSubjectOrderedByRate(subject);
+            if (ConversationCommands.isNextPage(input)) {
+                sendNextTutorPage(session);
+                return;
+            }
+
+            Long tutorId;
+            Long tappedTutorId = input.replyNumber(ConversationCommands.REPLY_TUTOR);
+            if (tappedTutorId != null) {
+                // Only tutors on the page last shown can be picked
+                tutorId = session.isTempCandidate(tappedTutorId) ? tappedTutorId : null;
+            } else {
+                tutorId = session.getTempCandidateId(Integer.parseInt(input.text()));
+            }
 
-            int selection = Integer.parseInt(messageText.trim());
-            if (selection < 1 || selection > tutorSubjects.size()) {
+            if (tutorId == null) {
                 metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                        "Invalid selection. Please enter a number from the list.");
+                        messageTemplates.render("conversation.selection.invalid"));
                 return;
             }
 
-            User tutor = tutorSubjects.get(selection - 1).getTutor();
-            session.setTempTutorId(tutor.getId());
+            session.setTempTutorId(tutorId);
 
             // Ask for session type
-            List<String> buttons = new ArrayList<>();
-            buttons.add("💻 Online Session");
-            buttons.add("📍 In-Person Session");
-
-            metaWhatsAppService.sendMessageWithButtons(session.getPhoneNumber(),
-                    "How would you like to have your session?",
+            List<MetaWhatsAppService.ListOption> buttons = new ArrayList<>();
+            buttons.add(new MetaWhatsAppService.ListOption(
+                    ConversationCommands.replyId(ConversationCommands.REPLY_TYPE, "ONLINE"), messageTemplates.render("conversation.type.online")));
+            buttons.add(new MetaWhatsAppService.ListOption(
+                    ConversationCommands.replyId(ConversationCommands.REPLY_TYPE, "IN_PERSON"), messageTemplates.render("conversation.type.in-person")));
+
+            metaWhatsAppService.sendReplyButtons(session.getPhoneNumber(),
+                    messageTemplates.render("conversation.type.prompt"),
                     buttons);
 
             session.setState(UserSession.ConversationState.SELECTING_TYPE);
-            sessionRepository.save(session);
 
         } catch (NumberFormatException e) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "Please enter a number from the list.");
+                    messageTemplates.render("conversation.selection.not-a-number"));
         } catch (Exception e) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "An error occurred. Please try again.");
+                    messageTemplates.render("conversation.error"));
             logger.error("Error in tutor selection", e);
         }
     }
 
-    private void handleTypeSelection(UserSession session, String messageText) {
-        String normalizedMessage = messageText.trim().toLowerCase();
+    private void handleTypeSelection(UserSession session, ConversationInput input) {
         String type;
 
-        if (normalizedMessage.matches("1|online.*")) {
+        if (input.isReply(ConversationCommands.REPLY_TYPE, "ONLINE")
+                || input.matches(ConversationCommands.TYPE_ONLINE)) {
             type = "ONLINE";
-        } else if (normalizedMessage.matches("2|in-person.*|in person.*")) {
+        } else if (input.isReply(ConversationCommands.REPLY_TYPE, "IN_PERSON")
+                || input.matches(ConversationCommands.TYPE_IN_PERSON)) {
             type = "IN_PERSON";
         } else {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "Please select:\n1 - Online\n2 - In-Person");
+                    messageTemplates.render("conversation.type.invalid"));
             return;
         }
 
         session.setTempSessionType(type);
 
         metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                "📅 *Choose Date & Time*\n\n" +
-                        "Please enter your preferred date and time:\n\n" +
-                        "*Format:* YYYY-MM-DD HH:MM\n" +
-                        "*Example:* 2026-02-15 14:00\n\n" +
-                        "_Make sure to check the tutor's availability_");
+                messageTemplates.render("conversation.datetime.prompt"));
 
         session.setState(UserSession.ConversationState.SELECTING_DATETIME);
-        sessionRepository.save(session);
     }
 
-    private void handleDateTimeSelection(UserSession session, String messageText) {
+    private void handleDateTimeSelection(UserSession session, ConversationInput input) {
         // Parse date time (simplified - in production use proper validation)
-        session.setTempDateTime(messageText.trim());
+        session.setTempDateTime(input.text());
 
-        List<String> buttons = new ArrayList<>();
-        buttons.add("⏱️ 30 minutes");
-        buttons.add("⏱️ 60 minutes");
-        buttons.add("⏱️ 90 minutes");
+        List<MetaWhatsAppService.ListOption> buttons = new ArrayList<>();
+        for (int minutes : new int[]{30, 60, 90}) {
+            buttons.add(new MetaWhatsAppService.ListOption(
+                    ConversationCommands.replyId(ConversationCommands.REPLY_DURATION, minutes),
+                    messageTemplates.render("conversation.duration.option", minutes)));
+        }
 
-        metaWhatsAppService.sendMessageWithButtons(session.getPhoneNumber(),
-                "How long would you like the session to be?",
+        metaWhatsAppService.sendReplyButtons(session.getPhoneNumber(),
+                messageTemplates.render("conversation.duration.prompt"),
                 buttons);
 
         session.setState(UserSession.ConversationState.SELECTING_DURATION);
-        sessionRepository.save(session);
     }
 
-    private void handleDurationSelection(UserSession session, String messageText) {
-        String normalizedMessage = messageText.trim().toLowerCase();
+    private void handleDurationSelection(UserSession session, ConversationInput input) {
         int duration;
+        Long tappedDuration = input.replyNumber(ConversationCommands.REPLY_DURATION);
 
-        if (normalizedMessage.matches(".*30.*|1")) {
+        if (tappedDuration != null && (tappedDuration == 30 || tappedDuration == 60 || tappedDuration == 90)) {
+            duration = tappedDuration.intValue();
+        } else if (input.matches(ConversationCommands.DURATION_30)) {
             duration = 30;
-        } else if (normalizedMessage.matches(".*60.*|2")) {
+        } else if (input.matches(ConversationCommands.DURATION_60)) {
             duration = 60;
-        } else if (normalizedMessage.matches(".*90.*|3")) {
+        } else if (input.matches(ConversationCommands.DURATION_90)) {
             duration = 90;
         } else {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "Please select duration:\n1 - 30 min\n2 - 60 min\n3 - 90 min");
+                    messageTemplates.render("conversation.duration.invalid"));
             return;
         }
 
         try {
             // Load all booking data
-            User student = userRepository.findByPhoneNumber(session.getPhoneNumber()).orElseThrow();
-            User tutor = userRepository.findById(session.getTempTutorId()).orElseThrow();
-            Subject subject = subjectRepository.findById(session.getTempSubjectId()).orElseThrow();
+            User student = currentUser(session).orElseThrow();
+            User tutor = userCache.findById(session.getTempTutorId()).orElseThrow();
+            Subject subject = subjectCatalog.findById(session.getTempSubjectId()).orElseThrow();
             TutorSubject tutorSubject = tutorSubjectRepository.findByTutorAndSubject(tutor, subject).orElseThrow();
 
             // Calculate price
@@ -768,15 +927,7 @@ public class ConversationService {
                     .divide(new BigDecimal(60), 2, BigDecimal.ROUND_HALF_UP);
 
             // Show confirmation
-            String confirmMessage = String.format(
-                    "📋 *Confirm Your Booking*\n\n" +
-                            "Tutor: %s\n" +
-                            "Subject: %s\n" +
-                            "Date/Time: %s\n" +
-                            "Duration: %d minutes\n" +
-                            "Type: %s\n" +
-                            "Price: R%.2f\n\n" +
-                            "Confirm this booking?",
+            String confirmMessage = messageTemplates.render("conversation.booking.confirm",
                     tutor.getFullName(),
                     subject.getName(),
                     session.getTempDateTime(),
@@ -789,25 +940,21 @@ public class ConversationService {
             // Store duration in notes temporarily
             session.setTempNotes(String.valueOf(duration));
             session.setState(UserSession.ConversationState.CONFIRMING_BOOKING);
-            sessionRepository.save(session);
 
         } catch (Exception e) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "An error occurred. Please start over by typing BOOK.");
+                    messageTemplates.render("conversation.booking.restart"));
             logger.error("Error in duration selection", e);
             session.setState(UserSession.ConversationState.AUTHENTICATED);
-            sessionRepository.save(session);
         }
     }
 
-    private void handleBookingConfirmation(UserSession session, String messageText) {
-        String normalizedMessage = messageText.trim().toLowerCase();
-
-        if (normalizedMessage.matches("1|yes.*|confirm.*")) {
+    private void handleBookingConfirmation(UserSession session, ConversationInput input) {
+        if (ConversationCommands.isConfirmed(input)) {
             try {
-                User student = userRepository.findByPhoneNumber(session.getPhoneNumber()).orElseThrow();
-                User tutor = userRepository.findById(session.getTempTutorId()).orElseThrow();
-                Subject subject = subjectRepository.findById(session.getTempSubjectId()).orElseThrow();
+                User student = currentUser(session).orElseThrow();
+                User tutor = userCache.findById(session.getTempTutorId()).orElseThrow();
+                Subject subject = subjectCatalog.findById(session.getTempSubjectId()).orElseThrow();
 
                 // Parse date time (simplified)
                 LocalDateTime sessionDateTime = LocalDateTime.parse(session.getTempDateTime().replace(" ", "T"));
@@ -819,100 +966,100 @@ public class ConversationService {
                         student, tutor, subject, sessionDateTime, duration, type, null);
 
                 metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                        String.format("✅ *Booking Request Sent!*\n\n" +
-                                "Your booking request has been sent to %s.\n" +
-                                "You'll receive a notification once they respond.\n\n" +
-                                "Booking ID: %d\n\n" +
-                                "Type SESSIONS to view your bookings.",
+                        messageTemplates.render("conversation.booking.sent",
                                 tutor.getFullName(),
                                 tutoringSession.getId()));
 
                 session.clearTempData();
                 session.setState(UserSession.ConversationState.AUTHENTICATED);
-                sessionRepository.save(session);
 
             } catch (Exception e) {
                 metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                        "An error occurred while creating the booking. Please try again.");
+                        messageTemplates.render("conversation.booking.failed"));
                 logger.error("Error confirming booking", e);
                 session.setState(UserSession.ConversationState.AUTHENTICATED);
-                sessionRepository.save(session);
             }
         } else {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "Booking cancelled. Type BOOK to start over.");
+                    messageTemplates.render("conversation.booking.cancelled"));
             session.clearTempData();
             session.setState(UserSession.ConversationState.AUTHENTICATED);
-            sessionRepository.save(session);
         }
     }
 
-    private void showMySessions(UserSession session, User student) {
-        List<TutoringSession> sessions = sessionService.getUpcomingSessions(student);
+    private void showMySessions(UserSession session, User student, ListCursor after) {
+        List<TutoringSession> sessions = sessionService.getUpcomingSessions(student,
+                cursorTime(after), cursorId(after), SESSION_PAGE_SIZE + 1);
 
         if (sessions.isEmpty()) {
-            metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "📅 You have no upcoming sessions.\n\nType BOOK to schedule one!");
+            metaWhatsAppService.sendTextMessage(session.getPhoneNumber(), after == null
+                    ? messageTemplates.render("conversation.sessions.none-student")
+                    : messageTemplates.render("conversation.sessions.no-more"));
+            session.setState(UserSession.ConversationState.AUTHENTICATED);
             return;
         }
 
-        StringBuilder message = new StringBuilder("📅 *Your Upcoming Sessions*\n\n");
+        boolean more = sessions.size() > SESSION_PAGE_SIZE;
+        if (more) {
+            sessions = sessions.subList(0, SESSION_PAGE_SIZE);
+        }
+
+        StringBuilder message = new StringBuilder();
+        messageTemplates.appendTo(message, "conversation.sessions.header");
         int count = 1;
         for (TutoringSession sess : sessions) {
-            message.append(String.format("%d. %s with %s\n" +
-                    "   📚 %s\n" +
-                    "   📅 %s\n" +
-                    "   💰 R%.2f • Status: %s\n\n",
+            messageTemplates.appendTo(message, "conversation.sessions.student-row",
                     count++,
                     sess.getSubject().getName(),
                     sess.getTutor().getFullName(),
                     sess.getType().name(),
-                    sess.getSessionDateTime().toLocalDate(),
+                    sess.getSessionDateTime(),
                     sess.getPrice(),
-                    sess.getStatus()));
+                    sess.getStatus());
         }
 
-        message.append("_Type CANCEL [id] to cancel a session_");
-        metaWhatsAppService.sendTextMessage(session.getPhoneNumber(), message.toString());
+        messageTemplates.appendTo(message, "conversation.sessions.student-footer");
+        sendSessionPage(session, message.toString(), CURSOR_UPCOMING, sessions, more);
     }
 
     private void findTutorsForSubject(UserSession session, User student, String subjectName) {
-        Optional<Subject> subjectOpt = subjectRepository.findByName(subjectName);
+        Optional<Subject> subjectOpt = subjectCatalog.current().findByName(subjectName);
 
         if (subjectOpt.isEmpty()) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "Subject not found. Type BOOK to see all available subjects.");
+                    messageTemplates.render("conversation.find.subject-not-found"));
             return;
         }
 
         Subject subject = subjectOpt.get();
-        List<TutorSubject> tutorSubjects = tutorSubjectRepository.findTutorsForSubjectOrderedByRate(subject);
+        List<TutorCandidate> candidates = findCandidatePage(subject.getId(), null);
 
-        if (tutorSubjects.isEmpty()) {
+        if (candidates.isEmpty()) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "No tutors available for " + subjectName + " at the moment.");
+                    messageTemplates.render("conversation.find.none", subjectName));
             return;
         }
 
-        StringBuilder message = new StringBuilder(
-                String.format("👨‍🏫 *Tutors for %s*\n\n", subject.getName()));
+        StringBuilder message = new StringBuilder();
+        messageTemplates.appendTo(message, "conversation.find.header", subject.getName());
 
-        for (int i = 0; i < tutorSubjects.size(); i++) {
-            TutorSubject ts = tutorSubjects.get(i);
-            Double avgRating = ratingRepository.calculateAverageRating(ts.getTutor());
-            String rating = avgRating != null ? String.format("%.1f⭐", avgRating) : "New tutor";
+        for (int i = 0; i < Math.min(candidates.size(), LIST_PAGE_SIZE); i++) {
+            TutorCandidate candidate = candidates.get(i);
+            String rating = rating(candidate.averageRating(), "conversation.rating.new-tutor");
 
-            message.append(String.format("%d. %s\n" +
-                    "   💰 R%.0f/hr • %s\n" +
-                    "   %s\n\n",
+            messageTemplates.appendTo(message, "conversation.find.row",
                     i + 1,
-                    ts.getTutor().getFullName(),
-                    ts.getHourlyRate(),
+                    candidate.fullName(),
+                    candidate.hourlyRate(),
                     rating,
-                    ts.getQualifications() != null ? ts.getQualifications() : ""));
+                    candidate.qualifications());
         }
 
-        message.append("_Type BOOK to schedule a session_");
+        if (candidates.size() > LIST_PAGE_SIZE) {
+            messageTemplates.appendTo(message, "conversation.find.footer-more");
+        } else {
+            messageTemplates.appendTo(message, "conversation.find.footer");
+        }
         metaWhatsAppService.sendTextMessage(session.getPhoneNumber(), message.toString());
     }
 
@@ -923,250 +1070,301 @@ public class ConversationService {
 
             if (tutoringSession == null || !tutoringSession.getStudent().getId().equals(student.getId())) {
                 metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                        "Session not found or you don't have permission to cancel it.");
+                        messageTemplates.render("conversation.cancel.not-found"));
                 return;
             }
 
             session.setTempSessionId(sessionId);
             metaWhatsAppService.sendConfirmationMessage(session.getPhoneNumber(),
-                    String.format("Are you sure you want to cancel your session with %s on %s?",
+                    messageTemplates.render("conversation.cancel.confirm",
                             tutoringSession.getTutor().getFullName(),
-                            tutoringSession.getSessionDateTime().toLocalDate()));
+                            tutoringSession.getSessionDateTime()));
 
             session.setState(UserSession.ConversationState.CANCELING_SESSION);
-            sessionRepository.save(session);
 
         } catch (NumberFormatException e) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "Invalid session ID. Please use: CANCEL [id]");
+                    messageTemplates.render("conversation.cancel.invalid-id"));
         }
     }
 
-    private void handleSessionCancellation(UserSession session, String messageText) {
-        String normalizedMessage = messageText.trim().toLowerCase();
-
-        if (normalizedMessage.matches("1|yes.*|confirm.*")) {
+    private void handleSessionCancellation(UserSession session, ConversationInput input) {
+        if (ConversationCommands.isConfirmed(input)) {
             try {
-                User student = userRepository.findByPhoneNumber(session.getPhoneNumber()).orElseThrow();
-                sessionService.cancelSession(session.getTempSessionId(), student, "Cancelled by student");
+                User student = currentUser(session).orElseThrow();
+                sessionService.cancelSession(session.getTempSessionId(), student,
+                        messageTemplates.render("conversation.cancel.reason"));
 
                 metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                        "✅ Session cancelled successfully.");
+                        messageTemplates.render("conversation.cancel.done"));
 
             } catch (Exception e) {
                 metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                        "Error cancelling session: " + e.getMessage());
+                        messageTemplates.render("conversation.cancel.failed", e.getMessage()));
             }
         } else {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "Cancellation aborted.");
+                    messageTemplates.render("conversation.cancel.aborted"));
         }
 
         session.clearTempData();
         session.setState(UserSession.ConversationState.AUTHENTICATED);
-        sessionRepository.save(session);
     }
 
     private void initiateRateSession(UserSession session, User student, String sessionIdStr) {
         try {
             Long sessionId = Long.parseLong(sessionIdStr);
-            TutoringSession tutoringSession = tutoringSessionRepository.findById(sessionId).orElse(null);
-
-            if (tutoringSession == null || !tutoringSession.getStudent().getId().equals(student.getId())) {
-                metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                        "Session not found or you don't have permission to rate it.");
-                return;
-            }
-
-            if (tutoringSession.getStatus() != TutoringSession.SessionStatus.COMPLETED) {
-                metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                        "You can only rate completed sessions.");
-                return;
-            }
-
-            // Check if already rated
-            if (ratingRepository.findBySession(tutoringSession).isPresent()) {
-                metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                        "You have already rated this session.");
+            TutoringSession tutoringSession = findRatableSession(session, student, sessionId);
+            if (tutoringSession == null) {
                 return;
             }
 
             session.setTempSessionId(sessionId);
 
-            String message = String.format(
-                    "⭐ *Rate Your Session*\n\n" +
-                            "Session with %s\n" +
-                            "Subject: %s\n\n" +
-                            "How many stars? (1-5)",
+            String message = messageTemplates.render("conversation.rate.prompt",
                     tutoringSession.getTutor().getFullName(),
                     tutoringSession.getSubject().getName());
 
-            List<String> buttons = new ArrayList<>();
-            buttons.add("⭐ 1 Star");
-            buttons.add("⭐⭐ 2 Stars");
-            buttons.add("⭐⭐⭐ 3 Stars");
+            List<MetaWhatsAppService.ListOption> buttons = new ArrayList<>();
+            buttons.add(new MetaWhatsAppService.ListOption(
+                    ConversationCommands.replyId(ConversationCommands.REPLY_STARS, 1), messageTemplates.render("conversation.rate.one")));
+            buttons.add(new MetaWhatsAppService.ListOption(
+                    ConversationCommands.replyId(ConversationCommands.REPLY_STARS, 2), messageTemplates.render("conversation.rate.two")));
+            buttons.add(new MetaWhatsAppService.ListOption(
+                    ConversationCommands.replyId(ConversationCommands.REPLY_STARS, 3), messageTemplates.render("conversation.rate.three")));
 
-            metaWhatsAppService.sendMessageWithButtons(session.getPhoneNumber(), message, buttons);
+            metaWhatsAppService.sendReplyButtons(session.getPhoneNumber(), message, buttons);
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "4️⃣ ⭐⭐⭐⭐ 4 Stars\n5️⃣ ⭐⭐⭐⭐⭐ 5 Stars");
+                    messageTemplates.render("conversation.rate.four-five"));
 
             session.setState(UserSession.ConversationState.RATING_SESSION);
-            sessionRepository.save(session);
 
         } catch (NumberFormatException e) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "Invalid session ID. Please use: RATE [id]");
+                    messageTemplates.render("conversation.rate.invalid-id"));
         }
     }
 
-    private void handleSessionRating(UserSession session, String messageText) {
+    private void handleSessionRating(UserSession session, ConversationInput input) {
         try {
-            String normalized = messageText.trim().toLowerCase();
-            int stars;
-
             // Parse stars from various formats
-            if (normalized.matches(".*5.*|five"))
-                stars = 5;
-            else if (normalized.matches(".*4.*|four"))
-                stars = 4;
-            else if (normalized.matches(".*3.*|three"))
-                stars = 3;
-            else if (normalized.matches(".*2.*|two"))
-                stars = 2;
-            else if (normalized.matches(".*1.*|one"))
-                stars = 1;
-            else {
+            int stars = ConversationCommands.parseStars(input);
+            if (stars == 0) {
                 metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                        "Please enter a rating from 1 to 5 stars.");
+                        messageTemplates.render("conversation.rate.invalid"));
                 return;
             }
 
-            User student = userRepository.findByPhoneNumber(session.getPhoneNumber()).orElseThrow();
+            User student = currentUser(session).orElseThrow();
             TutoringSession tutoringSession = tutoringSessionRepository.findById(session.getTempSessionId())
                     .orElseThrow();
 
-            // Create rating
-            Rating rating = new Rating(tutoringSession, tutoringSession.getTutor(), student, stars);
-            ratingRepository.save(rating);
+            recordRating(session, student, tutoringSession, stars);
 
+        } catch (Exception e) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    String.format("✅ Thank you for rating! You gave %d stars.\n\n" +
-                            "Would you like to add a written review? (Reply with review text or type SKIP)",
-                            stars));
+                    messageTemplates.render("conversation.rate.failed"));
+            logger.error("Error in rating session", e);
+        }
+    }
 
-            session.setState(UserSession.ConversationState.WRITING_REVIEW);
-            sessionRepository.save(session);
+    /**
+     * A star button tapped on a review request (see ReminderService), whose
+     * reply id carries "sessionId:stars"
+     */
+    private void rateFromReviewRequest(UserSession session, User student, String reply) {
+        String[] parts = reply.split(":");
+        try {
+            Long sessionId = Long.parseLong(parts[0]);
+            int stars = parts.length == 2 ? Integer.parseInt(parts[1]) : 0;
+            if (stars < 1 || stars > 5) {
+                throw new NumberFormatException("stars out of range: " + reply);
+            }
 
-        } catch (Exception e) {
+            TutoringSession tutoringSession = findRatableSession(session, student, sessionId);
+            if (tutoringSession == null) {
+                return;
+            }
+
+            session.setTempSessionId(sessionId);
+            recordRating(session, student, tutoringSession, stars);
+
+        } catch (NumberFormatException e) {
+            logger.warn("Malformed review reply id from {}: {}", session.getPhoneNumber(), reply);
+            sendStudentHelpMessage(session);
+        }
+    }
+
+    /**
+     * The student's completed, unrated session, or null after telling them why it can't be rated
+     */
+    private TutoringSession findRatableSession(UserSession session, User student, Long sessionId) {
+        TutoringSession tutoringSession = tutoringSessionRepository.findById(sessionId).orElse(null);
+
+        if (tutoringSession == null || !tutoringSession.getStudent().getId().equals(student.getId())) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "Error saving rating. Please try again.");
-            logger.error("Error in rating session", e);
+                    messageTemplates.render("conversation.rate.not-found"));
+            return null;
+        }
+
+        if (tutoringSession.getStatus() != TutoringSession.SessionStatus.COMPLETED) {
+            metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
+                    messageTemplates.render("conversation.rate.not-completed"));
+            return null;
+        }
+
+        // Check if already rated
+        if (ratingRepository.findBySession(tutoringSession).isPresent()) {
+            metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
+                    messageTemplates.render("conversation.rate.already-rated"));
+            return null;
         }
+
+        return tutoringSession;
     }
 
-    private void handleReviewWriting(UserSession session, String messageText) {
-        String normalized = messageText.trim().toLowerCase();
+    private void recordRating(UserSession session, User student, TutoringSession tutoringSession, int stars) {
+        ratingService.rateSession(tutoringSession, student, stars);
 
-        if (!normalized.equals("skip")) {
+        metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
+                messageTemplates.render("conversation.rate.thanks", stars));
+
+        session.setState(UserSession.ConversationState.WRITING_REVIEW);
+    }
+
+    private void handleReviewWriting(UserSession session, ConversationInput input) {
+        if (!input.is("skip")) {
             try {
-                User student = userRepository.findByPhoneNumber(session.getPhoneNumber()).orElseThrow();
+                User student = currentUser(session).orElseThrow();
                 TutoringSession tutoringSession = tutoringSessionRepository.findById(session.getTempSessionId())
                         .orElseThrow();
                 Rating rating = ratingRepository.findBySession(tutoringSession).orElseThrow();
 
-                rating.setReview(messageText.trim());
+                rating.setReview(input.text());
                 ratingRepository.save(rating);
 
                 metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                        "✅ Thank you for your review! Your feedback helps other students.");
+                        messageTemplates.render("conversation.review.thanks"));
 
             } catch (Exception e) {
                 metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                        "Error saving review, but your rating was recorded.");
+                        messageTemplates.render("conversation.review.failed"));
                 logger.error("Error saving review", e);
             }
         } else {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "✅ Rating recorded. Thank you!");
+                    messageTemplates.render("conversation.review.skipped"));
         }
 
         session.clearTempData();
         session.setState(UserSession.ConversationState.AUTHENTICATED);
-        sessionRepository.save(session);
     }
 
     private void sendStudentHelpMessage(UserSession session) {
         metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                "📚 *Student Commands*\n\n" +
-                        "• BOOK - Book a session\n" +
-                        "• SESSIONS - View sessions\n" +
-                        "• FIND [subject] - Find tutors\n" +
-                        "• CANCEL [id] - Cancel session\n" +
-                        "• RATE [id] - Rate session\n" +
-                        "• PROFILE - View profile\n" +
-                        "• MENU - Main menu\n" +
-                        "• LOGOUT - Sign out");
+                messageTemplates.render("conversation.help.student"));
     }
 
     // ============ TUTOR WORKFLOW METHODS ============
 
-    private void showTutorSessions(UserSession session, User tutor) {
-        List<TutoringSession> sessions = sessionService.getUpcomingSessions(tutor);
+    private void showTutorSessions(UserSession session, User tutor, ListCursor after) {
+        List<TutoringSession> sessions = sessionService.getUpcomingSessions(tutor,
+                cursorTime(after), cursorId(after), SESSION_PAGE_SIZE + 1);
 
         if (sessions.isEmpty()) {
-            metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "📅 You have no upcoming sessions.");
+            metaWhatsAppService.sendTextMessage(session.getPhoneNumber(), after == null
+                    ? messageTemplates.render("conversation.sessions.none")
+                    : messageTemplates.render("conversation.sessions.no-more"));
+            session.setState(UserSession.ConversationState.AUTHENTICATED);
             return;
         }
 
-        StringBuilder message = new StringBuilder("📅 *Your Upcoming Sessions*\n\n");
+        boolean more = sessions.size() > SESSION_PAGE_SIZE;
+        if (more) {
+            sessions = sessions.subList(0, SESSION_PAGE_SIZE);
+        }
+
+        StringBuilder message = new StringBuilder();
+        messageTemplates.appendTo(message, "conversation.sessions.header");
         int count = 1;
         for (TutoringSession sess : sessions) {
-            message.append(String.format("%d. %s with %s\n" +
-                    "   📚 %s\n" +
-                    "   📅 %s\n" +
-                    "   💰 R%.2f\n" +
-                    "   ID: %d\n\n",
+            messageTemplates.appendTo(message, "conversation.sessions.tutor-row",
                     count++,
                     sess.getSubject().getName(),
                     sess.getStudent().getFullName(),
                     sess.getType().name(),
-                    sess.getSessionDateTime().toLocalDate(),
+                    sess.getSessionDateTime(),
                     sess.getPrice(),
-                    sess.getId()));
+                    sess.getId());
         }
 
-        message.append("_Type COMPLETE [id] to mark session as done_");
-        metaWhatsAppService.sendTextMessage(session.getPhoneNumber(), message.toString());
+        messageTemplates.appendTo(message, "conversation.sessions.tutor-footer");
+        sendSessionPage(session, message.toString(), CURSOR_UPCOMING, sessions, more);
     }
 
-    private void showPendingBookings(UserSession session, User tutor) {
-        List<TutoringSession> pendingSessions = sessionService.getPendingSessions(tutor);
+    private void showPendingBookings(UserSession session, User tutor, ListCursor after) {
+        List<TutoringSession> pendingSessions = sessionService.getPendingSessions(tutor,
+                cursorTime(after), cursorId(after), SESSION_PAGE_SIZE + 1);
 
         if (pendingSessions.isEmpty()) {
-            metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "🔔 No pending booking requests.");
+            metaWhatsAppService.sendTextMessage(session.getPhoneNumber(), after == null
+                    ? messageTemplates.render("conversation.pending.none")
+                    : messageTemplates.render("conversation.pending.no-more"));
+            session.setState(UserSession.ConversationState.AUTHENTICATED);
             return;
         }
 
-        StringBuilder message = new StringBuilder("🔔 *Pending Booking Requests*\n\n");
+        boolean more = pendingSessions.size() > SESSION_PAGE_SIZE;
+        if (more) {
+            pendingSessions = pendingSessions.subList(0, SESSION_PAGE_SIZE);
+        }
+
+        StringBuilder message = new StringBuilder();
+        messageTemplates.appendTo(message, "conversation.pending.header");
         for (TutoringSession sess : pendingSessions) {
-            message.append(String.format("ID: %d\n" +
-                    "Student: %s\n" +
-                    "Subject: %s\n" +
-                    "Date: %s\n" +
-                    "Duration: %d min\n" +
-                    "Price: R%.2f\n\n",
+            messageTemplates.appendTo(message, "conversation.pending.row",
                     sess.getId(),
                     sess.getStudent().getFullName(),
                     sess.getSubject().getName(),
-                    sess.getSessionDateTime().toLocalDate(),
+                    sess.getSessionDateTime(),
                     sess.getDurationMinutes(),
-                    sess.getPrice()));
+                    sess.getPrice());
         }
 
-        message.append("_Reply with:_\n• ACCEPT [id]\n• DECLINE [id]");
-        metaWhatsAppService.sendTextMessage(session.getPhoneNumber(), message.toString());
+        messageTemplates.appendTo(message, "conversation.pending.footer");
+        sendSessionPage(session, message.toString(), CURSOR_PENDING, pendingSessions, more);
+    }
+
+    /**
+     * Send a page of a session listing. If another page follows, offer a "more"
+     * button and remember where this page ended.
+     */
+    private void sendSessionPage(UserSession session, String message, String kind,
+                                 List<TutoringSession> shown, boolean more) {
+        if (!more) {
+            metaWhatsAppService.sendTextMessage(session.getPhoneNumber(), message);
+            session.setListCursor(null);
+            session.setState(UserSession.ConversationState.AUTHENTICATED);
+            return;
+        }
+
+        TutoringSession last = shown.get(shown.size() - 1);
+        session.setListCursor(new ListCursor(kind, last.getSessionDateTime().toString(), last.getId()).encode());
+
+        List<MetaWhatsAppService.ListOption> buttons = new ArrayList<>();
+        buttons.add(new MetaWhatsAppService.ListOption(
+                ConversationCommands.replyId(ConversationCommands.REPLY_PAGE, "next"), messageTemplates.render("conversation.sessions.more")));
+        metaWhatsAppService.sendReplyButtons(session.getPhoneNumber(), message, buttons);
+
+        session.setState(UserSession.ConversationState.VIEWING_SESSIONS);
+    }
+
+    private static LocalDateTime cursorTime(ListCursor cursor) {
+        return cursor != null ? LocalDateTime.parse(cursor.key()) : null;
+    }
+
+    private static Long cursorId(ListCursor cursor) {
+        return cursor != null ? cursor.id() : null;
     }
 
     private void acceptBooking(UserSession session, User tutor, String sessionIdStr) {
@@ -1175,31 +1373,32 @@ public class ConversationService {
             sessionService.acceptSession(sessionId, tutor);
 
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "✅ Booking accepted! The student has been notified and will receive a payment link.");
+                    messageTemplates.render("conversation.accept.done"));
 
         } catch (NumberFormatException e) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "Invalid ID. Use: ACCEPT [id]");
+                    messageTemplates.render("conversation.accept.invalid-id"));
         } catch (Exception e) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "Error accepting booking: " + e.getMessage());
+                    messageTemplates.render("conversation.accept.failed", e.getMessage()));
         }
     }
 
     private void declineBooking(UserSession session, User tutor, String sessionIdStr) {
         try {
             Long sessionId = Long.parseLong(sessionIdStr);
-            sessionService.declineSession(sessionId, tutor, "Not available at this time");
+            sessionService.declineSession(sessionId, tutor,
+                    messageTemplates.render("conversation.decline.reason"));
 
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "Booking declined. The student has been notified.");
+                    messageTemplates.render("conversation.decline.done"));
 
         } catch (NumberFormatException e) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "Invalid ID. Use: DECLINE [id]");
+                    messageTemplates.render("conversation.decline.invalid-id"));
         } catch (Exception e) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "Error declining booking: " + e.getMessage());
+                    messageTemplates.render("conversation.decline.failed", e.getMessage()));
         }
     }
 
@@ -1209,70 +1408,71 @@ public class ConversationService {
             sessionService.completeSession(sessionId, tutor);
 
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "✅ Session marked as complete! The student will be asked to leave a review.");
+                    messageTemplates.render("conversation.complete.done"));
 
         } catch (NumberFormatException e) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "Invalid ID. Use: COMPLETE [id]");
+                    messageTemplates.render("conversation.complete.invalid-id"));
         } catch (Exception e) {
             metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                    "Error completing session: " + e.getMessage());
+                    messageTemplates.render("conversation.complete.failed", e.getMessage()));
         }
     }
 
     private void updateAvailability(UserSession session, User tutor) {
         metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                "⏰ *Update Availability*\n\n" +
-                        "Feature coming soon!\n" +
-                        "You'll be able to set your weekly schedule here.");
+                messageTemplates.render("conversation.availability.coming-soon"));
     }
 
     private void showEarnings(UserSession session, User tutor) {
         BigDecimal totalEarnings = paymentService.calculateTutorEarnings(tutor);
         BigDecimal monthlyEarnings = paymentService.calculateMonthlyEarnings(tutor);
 
-        String message = String.format(
-                "💰 *Your Earnings*\n\n" +
-                        "This Month: R%.2f\n" +
-                        "Total Lifetime: R%.2f\n\n" +
-                        "_Type MENU for more options_",
+        String message = messageTemplates.render("conversation.earnings",
                 monthlyEarnings,
                 totalEarnings);
 
         metaWhatsAppService.sendTextMessage(session.getPhoneNumber(), message);
     }
 
-    private void handleBookingResponse(UserSession session, String messageText) {
+    private void handleBookingResponse(UserSession session, ConversationInput input) {
         // Handler for tutor responding to bookings
         session.setState(UserSession.ConversationState.AUTHENTICATED);
-        sessionRepository.save(session);
     }
 
-    private void handleAvailabilityUpdate(UserSession session, String messageText) {
+    private void handleAvailabilityUpdate(UserSession session, ConversationInput input) {
         // Handler for updating availability
         session.setState(UserSession.ConversationState.AUTHENTICATED);
-        sessionRepository.save(session);
     }
 
-    private void handleSessionViewing(UserSession session, String messageText) {
-        // Handler for viewing sessions
+    private void handleSessionViewing(UserSession session, ConversationInput input) {
         session.setState(UserSession.ConversationState.AUTHENTICATED);
-        sessionRepository.save(session);
+
+        Optional<User> userOpt = currentUser(session);
+        ListCursor upcoming = ListCursor.parse(session.getListCursor(), CURSOR_UPCOMING);
+        ListCursor pending = ListCursor.parse(session.getListCursor(), CURSOR_PENDING);
+
+        // Anything other than "more" is an ordinary command
+        if (!ConversationCommands.isNextPage(input) || userOpt.isEmpty()
+                || (upcoming == null && pending == null)) {
+            session.setListCursor(null);
+            handleAuthenticatedUser(session, input);
+            return;
+        }
+
+        User user = userOpt.get();
+        if (pending != null) {
+            showPendingBookings(session, user, pending);
+        } else if (user.getRole() == User.UserRole.TUTOR) {
+            showTutorSessions(session, user, upcoming);
+        } else {
+            showMySessions(session, user, upcoming);
+        }
     }
 
     private void sendTutorHelpMessage(UserSession session) {
         metaWhatsAppService.sendTextMessage(session.getPhoneNumber(),
-                "👨‍🏫 *Tutor Commands*\n\n" +
-                        "• SESSIONS - View sessions\n" +
-                        "• PENDING - Pending requests\n" +
-                        "• ACCEPT [id] - Accept booking\n" +
-                        "• DECLINE [id] - Decline booking\n" +
-                        "• COMPLETE [id] - Mark complete\n" +
-                        "• AVAILABILITY - Update schedule\n" +
-                        "• EARNINGS - View earnings\n" +
-                        "• PROFILE - View profile\n" +
-                        "• MENU - Main menu\n" +
-                        "• LOGOUT - Sign out");
+                messageTemplates.render("conversation.help.tutor"));
     }
 }
 
@@ -34,6 +34,9 @@ public class DataInitializationService implements CommandLineRunner {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SubjectCatalog subjectCatalog;
+
     @Override
     public void run(String... args) {
         logger.info("Initializing sample data...");
@@ -83,6 +86,7 @@ public class DataInitializationService implements CommandLineRunner {
         );
 
         subjectRepository.saveAll(subjects);
+        subjectCatalog.refreshAfterCommit();
         logger.info("Created {} subjects", subjects.size());
     }
 
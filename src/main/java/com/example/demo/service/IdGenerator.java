@@ -0,0 +1,150 @@
+package com.example.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered unique ids for payment references, receipts and meeting links.
+ * An id packs milliseconds since 2024-01-01 (41 bits), the node id (10 bits)
+ * and a per-millisecond sequence (12 bits), so ids from one node never repeat
+ * and ids from different nodes cannot collide as long as node ids differ.
+ * Generation is lock-free. When the sequence runs out or the clock steps
+ * back, the generator keeps counting from its last timestamp instead of
+ * waiting, so ids stay increasing.
+ * Tokens are the id in Crockford base32: 13 characters, URL-safe, and they
+ * sort in the order they were generated.
+ * The node id is ids.node-id if set. Otherwise it is claimed at startup as a
+ * scheduler lease ("id-node-N") and renewed while the instance runs; startup
+ * fails if no node id is free, and ids stop being issued if the lease is
+ * lost, rather than risk two instances sharing a node id.
+ */
+@Service
+public class IdGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGenerator.class);
+
+    private static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int TOKEN_LENGTH = 13;
+
+    private static final String NODE_LEASE_PREFIX = "id-node-";
+
+    @Autowired
+    private SchedulerLeaseService leaseService;
+
+    @Value("${ids.node-id:-1}")
+    private long configuredNodeId;
+
+    @Value("${ids.node-lease-minutes:10}")
+    private long nodeLeaseMinutes;
+
+    private long nodeId;
+
+    // Whether the node id is held as a lease, and still held
+    private boolean leased;
+    private volatile boolean nodeLost;
+
+    // Last issued timestamp and sequence, as (millis since EPOCH << SEQUENCE_BITS) | sequence
+    private final AtomicLong last = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (configuredNodeId > MAX_NODE) {
+            throw new IllegalStateException("ids.node-id must be between 0 and " + MAX_NODE);
+        }
+        if (configuredNodeId >= 0) {
+            nodeId = configuredNodeId;
+        } else {
+            nodeId = claimNodeId();
+            leased = true;
+        }
+        logger.info("Id generator using node id {}{}", nodeId, leased ? " (leased)" : "");
+    }
+
+    /**
+     * Keep the leased node id; if another instance has taken it over, stop
+     * issuing ids
+     */
+    @Scheduled(fixedDelayString = "${ids.node-lease-renew-ms:60000}",
+            initialDelayString = "${ids.node-lease-renew-ms:60000}")
+    public void renewNodeLease() {
+        if (!leased || nodeLost) {
+            return;
+        }
+        if (!leaseService.tryAcquire(NODE_LEASE_PREFIX + nodeId, Duration.ofMinutes(nodeLeaseMinutes))) {
+            nodeLost = true;
+            logger.error("Lost the lease on id node {}; no more ids will be issued by this instance", nodeId);
+        }
+    }
+
+    /**
+     * Next id; unique across nodes with distinct node ids and increasing on this node
+     */
+    public long nextId() {
+        if (nodeLost) {
+            throw new IllegalStateException("Id node " + nodeId + " is no longer leased by this instance");
+        }
+        long now = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+        long next;
+        long previous;
+        do {
+            previous = last.get();
+            // Same or earlier millisecond: take the next sequence, rolling into the next millisecond if full
+            next = now > previous ? now : previous + 1;
+        } while (!last.compareAndSet(previous, next));
+
+        long timestamp = next >>> SEQUENCE_BITS;
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+    }
+
+    /**
+     * Next id as a 13-character token, e.g. for a URL path
+     */
+    public String nextToken() {
+        return encode(nextId());
+    }
+
+    /**
+     * Next id as a reference with the given prefix, e.g. PAY-0BXK2M4Q7G0A1
+     */
+    public String nextReference(String prefix) {
+        return prefix + "-" + nextToken();
+    }
+
+    static String encode(long id) {
+        char[] chars = new char[TOKEN_LENGTH];
+        for (int i = TOKEN_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    private long claimNodeId() {
+        // Start at a random node so instances starting together rarely contend
+        long start = ThreadLocalRandom.current().nextLong(MAX_NODE + 1);
+        for (long i = 0; i <= MAX_NODE; i++) {
+            long candidate = (start + i) & MAX_NODE;
+            if (leaseService.tryAcquire(NODE_LEASE_PREFIX + candidate, Duration.ofMinutes(nodeLeaseMinutes))) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("No free id node; set ids.node-id explicitly");
+    }
+}
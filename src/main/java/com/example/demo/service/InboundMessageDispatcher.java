@@ -0,0 +1,113 @@
+package com.example.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands inbound WhatsApp messages off the webhook thread.
+ * Messages are striped across single-threaded lanes by phone number, so one
+ * user's messages are processed strictly in order while different users are
+ * processed in parallel.
+ */
+@Service
+public class InboundMessageDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(InboundMessageDispatcher.class);
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private MessageDeduplicationService deduplicationService;
+
+    @Value("${inbound.dispatcher.lanes:0}")
+    private int configuredLanes;
+
+    @Value("${inbound.dispatcher.lane.queue.capacity:500}")
+    private int laneQueueCapacity;
+
+    @Value("${inbound.dispatcher.shutdown.timeout.seconds:10}")
+    private long shutdownTimeoutSeconds;
+
+    private ThreadPoolExecutor[] lanes;
+
+    @PostConstruct
+    public void init() {
+        int laneCount = configuredLanes > 0 ? configuredLanes : Runtime.getRuntime().availableProcessors();
+        lanes = new ThreadPoolExecutor[laneCount];
+
+        for (int i = 0; i < laneCount; i++) {
+            String threadName = "inbound-lane-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(laneQueueCapacity),
+                    runnable -> new Thread(runnable, threadName),
+                    new ThreadPoolExecutor.AbortPolicy());
+        }
+
+        logger.info("Inbound message dispatcher started with {} lanes (queue capacity {} per lane)",
+                laneCount, laneQueueCapacity);
+    }
+
+    /**
+     * Queue a message for processing on the sender's lane.
+     * Returns false when the lane is full so the caller can ask Meta to redeliver.
+     */
+    public boolean dispatch(String messageId, String phoneNumber, String messageText, String replyId) {
+        try {
+            laneFor(phoneNumber).execute(() -> process(messageId, phoneNumber, messageText, replyId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.warn("Inbound lane full, rejecting message from {}", phoneNumber);
+            deduplicationService.release(messageId);
+            return false;
+        }
+    }
+
+    private void process(String messageId, String phoneNumber, String messageText, String replyId) {
+        try {
+            if (!deduplicationService.claim(messageId)) {
+                return;
+            }
+            conversationService.processMessage(phoneNumber, messageText, replyId);
+        } catch (Exception e) {
+            logger.error("Error processing message from {}: {}", phoneNumber, e.getMessage(), e);
+            // The conversation rolled back; let Meta's redelivery retry it
+            deduplicationService.releaseClaim(messageId);
+        }
+    }
+
+    private ThreadPoolExecutor laneFor(String phoneNumber) {
+        return lanes[Math.floorMod(phoneNumber.hashCode(), lanes.length)];
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(shutdownTimeoutSeconds);
+        for (ThreadPoolExecutor lane : lanes) {
+            try {
+                long remaining = deadline - System.nanoTime();
+                if (!lane.awaitTermination(Math.max(remaining, 0L), TimeUnit.NANOSECONDS)) {
+                    logger.warn("Inbound lane did not drain in time, {} messages dropped",
+                            lane.shutdownNow().size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lane.shutdownNow();
+            }
+        }
+    }
+}
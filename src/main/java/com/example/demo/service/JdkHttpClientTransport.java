@@ -0,0 +1,67 @@
+package com.example.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fully asynchronous transport on java.net.http.HttpClient.
+ * Negotiates HTTP/2 with graph.facebook.com so sends are multiplexed over a
+ * single kept-alive connection instead of one socket per request.
+ */
+@Component
+@ConditionalOnProperty(name = "meta.whatsapp.transport", havingValue = "async", matchIfMissing = true)
+public class JdkHttpClientTransport implements MetaApiTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdkHttpClientTransport.class);
+
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+
+    public JdkHttpClientTransport(
+            @Value("${meta.whatsapp.http.connect-timeout-ms:3000}") long connectTimeoutMs,
+            @Value("${meta.whatsapp.http.read-timeout-ms:10000}") long readTimeoutMs,
+            @Value("${meta.whatsapp.http.keep-alive-seconds:300}") long keepAliveSeconds) {
+
+        // Idle connection lifetime is a JVM-wide setting read when the client's connection pool first loads
+        if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", String.valueOf(keepAliveSeconds));
+        }
+
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        this.requestTimeout = Duration.ofMillis(readTimeoutMs);
+
+        logger.info("Meta API transport: async HttpClient (connect {}ms, read {}ms, keep-alive {}s)",
+                connectTimeoutMs, readTimeoutMs, keepAliveSeconds);
+    }
+
+    @Override
+    public CompletableFuture<String> post(String url, String accessToken, String jsonBody) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + accessToken)
+                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    if (response.statusCode() / 100 != 2) {
+                        throw new MetaApiException(response.statusCode(), response.body());
+                    }
+                    return response.body();
+                });
+    }
+}
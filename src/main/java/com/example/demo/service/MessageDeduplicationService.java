@@ -0,0 +1,180 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.ProcessedMessage;
+import com.example.demo.repository.ProcessedMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Drops Meta webhook redeliveries by WhatsApp message id.
+ * A lock-free in-memory window catches retries in O(1) on the webhook thread;
+ * the processed_messages table catches the ones that arrive after a restart
+ * or on another instance.
+ */
+@Service
+public class MessageDeduplicationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageDeduplicationService.class);
+
+    @Autowired
+    private ProcessedMessageRepository processedMessageRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SchedulerLeaseService leaseService;
+
+    @Value("${inbound.dedup.window.size:10000}")
+    private int windowSize;
+
+    @Value("${inbound.dedup.retention.hours:72}")
+    private long retentionHours;
+
+    /**
+     * Two generations of seen ids. When the current generation fills up it
+     * becomes the previous one, so the window always remembers between
+     * windowSize and 2 * windowSize of the most recent ids.
+     */
+    private final AtomicReference<Window> window = new AtomicReference<>(new Window(ConcurrentHashMap.newKeySet(),
+            ConcurrentHashMap.newKeySet()));
+
+    private Counter memoryHits;
+    private Counter storeHits;
+    private Counter misses;
+
+    @PostConstruct
+    public void init() {
+        memoryHits = Counter.builder("whatsapp.inbound.dedup")
+                .tag("result", "hit").tag("layer", "memory")
+                .description("Inbound messages dropped as duplicates")
+                .register(meterRegistry);
+        storeHits = Counter.builder("whatsapp.inbound.dedup")
+                .tag("result", "hit").tag("layer", "database")
+                .description("Inbound messages dropped as duplicates")
+                .register(meterRegistry);
+        misses = Counter.builder("whatsapp.inbound.dedup")
+                .tag("result", "miss").tag("layer", "database")
+                .description("Inbound messages accepted for processing")
+                .register(meterRegistry);
+    }
+
+    /**
+     * In-memory check, safe to call on the webhook thread.
+     * Returns false if the message id has been seen recently.
+     */
+    public boolean firstSighting(String messageId) {
+        if (messageId == null || messageId.isEmpty()) {
+            return true;
+        }
+
+        Window current = window.get();
+        if (current.previous.contains(messageId) || !current.latest.add(messageId)) {
+            memoryHits.increment();
+            return false;
+        }
+
+        if (current.latest.size() >= windowSize) {
+            // Losing this race is fine - another thread already rotated
+            window.compareAndSet(current, new Window(ConcurrentHashMap.newKeySet(), current.latest));
+        }
+        return true;
+    }
+
+    /**
+     * Forget a message id that was sighted but could not be queued, so Meta's
+     * redelivery is processed instead of being dropped.
+     */
+    public void release(String messageId) {
+        if (messageId == null) {
+            return;
+        }
+        Window current = window.get();
+        current.latest.remove(messageId);
+        current.previous.remove(messageId);
+    }
+
+    /**
+     * Persist the message id before processing.
+     * Returns false if another delivery of the same message already claimed it.
+     */
+    public boolean claim(String messageId) {
+        if (messageId == null || messageId.isEmpty()) {
+            return true;
+        }
+
+        try {
+            processedMessageRepository.saveAndFlush(new ProcessedMessage(messageId));
+            misses.increment();
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            storeHits.increment();
+            logger.info("Message {} already processed, ignoring redelivery", messageId);
+            return false;
+        }
+    }
+
+    /**
+     * Give up the claim on a message whose processing failed, in the store
+     * and in the in-memory window, so Meta's redelivery is processed instead
+     * of being dropped as a duplicate.
+     */
+    public void releaseClaim(String messageId) {
+        if (messageId == null || messageId.isEmpty()) {
+            return;
+        }
+
+        try {
+            processedMessageRepository.deleteByMessageId(messageId);
+        } catch (RuntimeException e) {
+            logger.warn("Could not release claim on message {}; its redelivery will be dropped: {}",
+                    messageId, e.getMessage());
+        }
+        release(messageId);
+    }
+
+    public long getHitCount() {
+        return (long) (memoryHits.count() + storeHits.count());
+    }
+
+    public long getMissCount() {
+        return (long) misses.count();
+    }
+
+    /**
+     * Remove processed message ids older than the retention period
+     * Runs every hour
+     */
+    @Scheduled(cron = "0 30 * * * *") // Every hour at half past
+    public void purgeExpired() {
+        if (!leaseService.tryAcquire("processed-messages-purge", Duration.ofMinutes(30))) {
+            return;
+        }
+        int removed = processedMessageRepository.deleteProcessedBefore(LocalDateTime.now().minusHours(retentionHours));
+        logger.info("Purged {} processed message ids older than {} hours", removed, retentionHours);
+    }
+
+    private static final class Window {
+        private final Set<String> latest;
+        private final Set<String> previous;
+
+        private Window(Set<String> latest, Set<String> previous) {
+            this.latest = latest;
+            this.previous = previous;
+        }
+    }
+}
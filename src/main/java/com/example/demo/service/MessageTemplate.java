@@ -0,0 +1,177 @@
+package com.example.demo.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An outbound message text compiled once into literal and placeholder segments.
+ * Placeholders are positional, {0} to {n}, optionally with a style:
+ * <ul>
+ * <li>{n,money} - number with two decimals, e.g. 150.00</li>
+ * <li>{n,whole} - number rounded to a whole number, e.g. 15</li>
+ * <li>{n,rating} - number with one decimal, e.g. 4.5</li>
+ * <li>{n,date} - LocalDate or LocalDateTime as yyyy-MM-dd</li>
+ * <li>{n,datetime} - LocalDateTime as "Feb 15, 2026 at 02:00 PM"</li>
+ * </ul>
+ * Other arguments render with String.valueOf, and null as an empty string.
+ * Rendering walks the segments and appends to the caller's StringBuilder; no
+ * format string is parsed per message.
+ */
+public final class MessageTemplate {
+
+    private static final byte PLAIN = 0;
+    private static final byte MONEY = 1;
+    private static final byte WHOLE = 2;
+    private static final byte DATE = 3;
+    private static final byte DATE_TIME = 4;
+    private static final byte RATING = 5;
+
+    private static final String DATE_TIME_PATTERN = "MMM dd, yyyy 'at' hh:mm a";
+
+    private final String key;
+    // literals[i] precedes placeholder i; the last literal follows the final placeholder
+    private final String[] literals;
+    private final int[] argIndexes;
+    private final byte[] styles;
+    private final int arity;
+    private final DateTimeFormatter dateTimeFormatter;
+
+    private MessageTemplate(String key, List<String> literals, List<Integer> argIndexes, List<Byte> styles,
+                            Locale locale) {
+        this.key = key;
+        this.literals = literals.toArray(new String[0]);
+        this.argIndexes = new int[argIndexes.size()];
+        this.styles = new byte[styles.size()];
+
+        int highest = -1;
+        for (int i = 0; i < this.argIndexes.length; i++) {
+            this.argIndexes[i] = argIndexes.get(i);
+            this.styles[i] = styles.get(i);
+            highest = Math.max(highest, this.argIndexes[i]);
+        }
+        this.arity = highest + 1;
+        this.dateTimeFormatter = DateTimeFormatter.ofPattern(DATE_TIME_PATTERN, locale);
+    }
+
+    /**
+     * Compile a template, failing on unbalanced braces or unknown styles
+     */
+    public static MessageTemplate compile(String key, String source, Locale locale) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> argIndexes = new ArrayList<>();
+        List<Byte> styles = new ArrayList<>();
+
+        int start = 0;
+        while (true) {
+            int open = source.indexOf('{', start);
+            if (open < 0) {
+                literals.add(source.substring(start));
+                break;
+            }
+            int close = source.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder in message template " + key);
+            }
+
+            literals.add(source.substring(start, open));
+            String placeholder = source.substring(open + 1, close).trim();
+            int comma = placeholder.indexOf(',');
+            String index = comma < 0 ? placeholder : placeholder.substring(0, comma).trim();
+            String style = comma < 0 ? "" : placeholder.substring(comma + 1).trim();
+
+            try {
+                argIndexes.add(Integer.parseInt(index));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad placeholder {" + placeholder + "} in message template " + key);
+            }
+            styles.add(parseStyle(key, style));
+            start = close + 1;
+        }
+
+        return new MessageTemplate(key, literals, argIndexes, styles, locale);
+    }
+
+    private static byte parseStyle(String key, String style) {
+        switch (style) {
+            case "":
+                return PLAIN;
+            case "money":
+                return MONEY;
+            case "whole":
+                return WHOLE;
+            case "date":
+                return DATE;
+            case "datetime":
+                return DATE_TIME;
+            case "rating":
+                return RATING;
+            default:
+                throw new IllegalArgumentException("Unknown style '" + style + "' in message template " + key);
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Number of arguments the template expects
+     */
+    public int getArity() {
+        return arity;
+    }
+
+    public void appendTo(StringBuilder out, Object... args) {
+        if (args.length < arity) {
+            throw new IllegalArgumentException("Message template " + key + " needs " + arity
+                    + " arguments, got " + args.length);
+        }
+
+        for (int i = 0; i < argIndexes.length; i++) {
+            out.append(literals[i]);
+            appendValue(out, args[argIndexes[i]], styles[i]);
+        }
+        out.append(literals[literals.length - 1]);
+    }
+
+    private void appendValue(StringBuilder out, Object value, byte style) {
+        if (value == null) {
+            return;
+        }
+
+        switch (style) {
+            case MONEY:
+                out.append(toBigDecimal(value).setScale(2, RoundingMode.HALF_UP).toPlainString());
+                break;
+            case WHOLE:
+                out.append(toBigDecimal(value).setScale(0, RoundingMode.HALF_UP).toPlainString());
+                break;
+            case RATING:
+                out.append(toBigDecimal(value).setScale(1, RoundingMode.HALF_UP).toPlainString());
+                break;
+            case DATE:
+                out.append(value instanceof LocalDateTime ? ((LocalDateTime) value).toLocalDate() : value);
+                break;
+            case DATE_TIME:
+                dateTimeFormatter.formatTo((LocalDateTime) value, out);
+                break;
+            default:
+                out.append(value);
+        }
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof Integer || value instanceof Long) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        }
+        return BigDecimal.valueOf(((Number) value).doubleValue());
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Registry of outbound message texts, compiled once at startup.
+ * Templates live in messages/templates.properties (UTF-8). A locale variant
+ * such as messages/templates_af.properties only needs the keys it
+ * translates; anything missing falls back to the default file.
+ * Rendering uses a per-thread StringBuilder that is reused across messages.
+ */
+@Component
+public class MessageTemplates {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageTemplates.class);
+
+    private static final String BASE_NAME = "messages/templates";
+    private static final int MAX_RETAINED_CAPACITY = 8192;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(512));
+
+    @Value("${messages.locales:}")
+    private String[] locales;
+
+    @Value("${messages.default-locale:en}")
+    private String defaultLocaleTag;
+
+    private Locale defaultLocale;
+    private final Map<String, MessageTemplate> defaults = new HashMap<>();
+    private final Map<Locale, Map<String, MessageTemplate>> variants = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        defaultLocale = Locale.forLanguageTag(defaultLocaleTag);
+
+        Properties base = load(BASE_NAME + ".properties");
+        if (base == null) {
+            throw new IllegalStateException("Missing " + BASE_NAME + ".properties");
+        }
+        compileInto(defaults, base, defaultLocale);
+
+        for (String tag : locales) {
+            if (tag.isBlank()) {
+                continue;
+            }
+            Locale locale = Locale.forLanguageTag(tag.trim());
+            Properties translated = load(BASE_NAME + "_" + locale.toString() + ".properties");
+            if (translated == null) {
+                logger.warn("No message templates for locale {}, using {}", locale, defaultLocale);
+                continue;
+            }
+            Map<String, MessageTemplate> compiled = new HashMap<>();
+            compileInto(compiled, translated, locale);
+            variants.put(locale, compiled);
+        }
+
+        logger.info("Compiled {} message templates, {} locale variants", defaults.size(), variants.size());
+    }
+
+    /**
+     * Render a template in the default locale
+     */
+    public String render(String key, Object... args) {
+        return render(defaultLocale, key, args);
+    }
+
+    public String render(Locale locale, String key, Object... args) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        get(locale, key).appendTo(buffer, args);
+        String text = buffer.toString();
+
+        // Don't keep one unusually long message's buffer around forever
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            BUFFER.remove();
+        }
+        return text;
+    }
+
+    /**
+     * Render a template onto the end of a message being built, e.g. one row of a list
+     */
+    public void appendTo(StringBuilder out, String key, Object... args) {
+        get(defaultLocale, key).appendTo(out, args);
+    }
+
+    public MessageTemplate get(Locale locale, String key) {
+        Map<String, MessageTemplate> variant = variants.get(locale);
+        if (variant == null && !locale.getCountry().isEmpty()) {
+            variant = variants.get(new Locale(locale.getLanguage()));
+        }
+
+        MessageTemplate template = variant != null ? variant.get(key) : null;
+        if (template == null) {
+            template = defaults.get(key);
+        }
+        if (template == null) {
+            throw new IllegalStateException("Unknown message template: " + key);
+        }
+        return template;
+    }
+
+    private void compileInto(Map<String, MessageTemplate> target, Properties properties, Locale locale) {
+        for (String key : properties.stringPropertyNames()) {
+            target.put(key, MessageTemplate.compile(key, properties.getProperty(key), locale));
+        }
+    }
+
+    private Properties load(String resource) {
+        try (InputStream in = MessageTemplates.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                return null;
+            }
+            Properties properties = new Properties();
+            properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            return properties;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read " + resource, e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.service;
+
+/**
+ * Error response from Meta's Graph API
+ */
+public class MetaApiException extends RuntimeException {
+
+    private final int statusCode;
+
+    public MetaApiException(int statusCode, String responseBody) {
+        super("Meta API returned error: " + statusCode + (responseBody != null ? " " + responseBody : ""));
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
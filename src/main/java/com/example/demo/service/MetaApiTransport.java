@@ -0,0 +1,15 @@
+package com.example.demo.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * HTTP transport used by MetaWhatsAppService to call the Graph API.
+ * Implementations must not block the calling thread; the returned future
+ * completes with the response body, or exceptionally with a MetaApiException
+ * for non-2xx responses.
+ * Select the implementation with meta.whatsapp.transport (async or blocking).
+ */
+public interface MetaApiTransport {
+
+    CompletableFuture<String> post(String url, String accessToken, String jsonBody);
+}
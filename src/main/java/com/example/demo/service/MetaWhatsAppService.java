@@ -1,20 +1,24 @@
 package com.example.demo.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import javax.annotation.PostConstruct;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for sending WhatsApp messages using Meta's WhatsApp Business Platform
  * API
  * This replaces TwilioService with Meta's Cloud API
+ *
+ * Sends are asynchronous: every send method writes the message to the outbox
+ * and returns a future that completes once Meta has accepted it. Delivery,
+ * ordering, rate limiting and retries are handled by OutboundMessageDispatcher.
  */
 @Service
 public class MetaWhatsAppService {
@@ -30,15 +34,18 @@ public class MetaWhatsAppService {
     @Value("${meta.whatsapp.business.account.id}")
     private String businessAccountId;
 
-    private static final String META_API_VERSION = "v21.0";
+    static final String META_API_VERSION = "v21.0";
     private String apiBaseUrl;
 
-    private final RestTemplate restTemplate;
+    private final OutboundMessageDispatcher outboundMessageDispatcher;
     private final ObjectMapper objectMapper;
+    private final MessageTemplates messageTemplates;
 
-    public MetaWhatsAppService() {
-        this.restTemplate = new RestTemplate();
-        this.objectMapper = new ObjectMapper();
+    public MetaWhatsAppService(OutboundMessageDispatcher outboundMessageDispatcher, ObjectMapper objectMapper,
+                               MessageTemplates messageTemplates) {
+        this.outboundMessageDispatcher = outboundMessageDispatcher;
+        this.objectMapper = objectMapper;
+        this.messageTemplates = messageTemplates;
     }
 
     @PostConstruct
@@ -50,7 +57,7 @@ public class MetaWhatsAppService {
     /**
      * Send a text message to a WhatsApp number
      */
-    public void sendTextMessage(String to, String messageText) {
+    public CompletableFuture<Void> sendTextMessage(String to, String messageText) {
         try {
             // Remove whatsapp: prefix if present and any + signs
             String toNumber = to.replace("whatsapp:", "").replace("+", "");
@@ -66,8 +73,8 @@ public class MetaWhatsAppService {
             text.put("body", messageText);
             payload.put("text", text);
 
-            sendRequest(payload);
-            logger.info("Message sent successfully to {}", to);
+            return sendRequest(toNumber, payload)
+                    .whenComplete((result, error) -> logOutcome("Message", to, error));
 
         } catch (Exception e) {
             logger.error("Error sending WhatsApp message to {}: {}", to, e.getMessage(), e);
@@ -79,7 +86,21 @@ public class MetaWhatsAppService {
      * Send a message with interactive reply buttons (up to 3 buttons)
      * Meta's Interactive Buttons feature
      */
-    public void sendMessageWithButtons(String to, String messageText, List<String> buttons) {
+    public CompletableFuture<Void> sendMessageWithButtons(String to, String messageText, List<String> buttons) {
+        List<ListOption> options = new ArrayList<>();
+        if (buttons != null) {
+            for (int i = 0; i < buttons.size(); i++) {
+                options.add(new ListOption("button_" + (i + 1), buttons.get(i)));
+            }
+        }
+        return sendReplyButtons(to, messageText, options);
+    }
+
+    /**
+     * Send a message with up to 3 reply buttons, each with its own reply id.
+     * The id comes back on the inbound message when the button is tapped.
+     */
+    public CompletableFuture<Void> sendReplyButtons(String to, String messageText, List<ListOption> buttons) {
         try {
             if (buttons == null || buttons.isEmpty() || buttons.size() > 3) {
                 throw new IllegalArgumentException("Must provide 1-3 buttons");
@@ -110,8 +131,8 @@ public class MetaWhatsAppService {
                 button.put("type", "reply");
 
                 Map<String, String> reply = new HashMap<>();
-                reply.put("id", "button_" + (i + 1));
-                reply.put("title", truncateText(buttons.get(i), 20)); // Max 20 chars for button title
+                reply.put("id", buttons.get(i).getId());
+                reply.put("title", truncateText(buttons.get(i).getTitle(), 20)); // Max 20 chars for button title
                 button.put("reply", reply);
 
                 buttonList.add(button);
@@ -122,8 +143,8 @@ public class MetaWhatsAppService {
 
             payload.put("interactive", interactive);
 
-            sendRequest(payload);
-            logger.info("Interactive button message sent successfully to {}", to);
+            return sendRequest(toNumber, payload)
+                    .whenComplete((result, error) -> logOutcome("Interactive button message", to, error));
 
         } catch (Exception e) {
             logger.error("Error sending WhatsApp message with buttons to {}: {}", to, e.getMessage(), e);
@@ -135,7 +156,7 @@ public class MetaWhatsAppService {
      * Send an interactive list message with multiple options
      * Meta's Interactive List feature
      */
-    public void sendListMessage(String to, String headerText, String bodyText, List<ListOption> options) {
+    public CompletableFuture<Void> sendListMessage(String to, String headerText, String bodyText, List<ListOption> options) {
         try {
             if (options == null || options.isEmpty() || options.size() > 10) {
                 throw new IllegalArgumentException("Must provide 1-10 options for a list");
@@ -167,7 +188,7 @@ public class MetaWhatsAppService {
 
             // Action with list
             Map<String, Object> action = new HashMap<>();
-            action.put("button", "View Options"); // The button text that opens the list
+            action.put("button", messageTemplates.render("message.list.button")); // The button text that opens the list
 
             List<Map<String, Object>> sections = new ArrayList<>();
             Map<String, Object> section = new HashMap<>();
@@ -193,8 +214,8 @@ public class MetaWhatsAppService {
 
             payload.put("interactive", interactive);
 
-            sendRequest(payload);
-            logger.info("Interactive list message sent successfully to {}", to);
+            return sendRequest(toNumber, payload)
+                    .whenComplete((result, error) -> logOutcome("Interactive list message", to, error));
 
         } catch (Exception e) {
             logger.error("Error sending list message to {}: {}", to, e.getMessage(), e);
@@ -205,11 +226,11 @@ public class MetaWhatsAppService {
     /**
      * Send a message with a clickable link button
      */
-    public void sendMessageWithLink(String to, String messageText, String linkUrl, String linkText) {
+    public CompletableFuture<Void> sendMessageWithLink(String to, String messageText, String linkUrl, String linkText) {
         try {
             // For link buttons, we can use text with URL or interactive CTA button
-            String message = messageText + "\n\n🔗 " + linkText + ": " + linkUrl;
-            sendTextMessage(to, message);
+            String message = messageTemplates.render("message.with-link", messageText, linkText, linkUrl);
+            return sendTextMessage(to, message);
 
         } catch (Exception e) {
             logger.error("Error sending message with link to {}: {}", to, e.getMessage(), e);
@@ -220,18 +241,20 @@ public class MetaWhatsAppService {
     /**
      * Send a confirmation message with Yes/No buttons
      */
-    public void sendConfirmationMessage(String to, String messageText) {
-        List<String> buttons = new ArrayList<>();
-        buttons.add("✅ Yes, Confirm");
-        buttons.add("❌ No, Cancel");
-        sendMessageWithButtons(to, messageText, buttons);
+    public CompletableFuture<Void> sendConfirmationMessage(String to, String messageText) {
+        List<ListOption> buttons = new ArrayList<>();
+        buttons.add(new ListOption(ConversationCommands.replyId(ConversationCommands.REPLY_CONFIRM, "yes"),
+                messageTemplates.render("message.confirm.yes")));
+        buttons.add(new ListOption(ConversationCommands.replyId(ConversationCommands.REPLY_CONFIRM, "no"),
+                messageTemplates.render("message.confirm.no")));
+        return sendReplyButtons(to, messageText, buttons);
     }
 
     /**
      * Send a template message (requires pre-approved templates)
      * Use this for notifications, reminders, etc.
      */
-    public void sendTemplateMessage(String to, String templateName, String languageCode, List<String> parameters) {
+    public CompletableFuture<Void> sendTemplateMessage(String to, String templateName, String languageCode, List<String> parameters) {
         try {
             String toNumber = to.replace("whatsapp:", "").replace("+", "");
 
@@ -266,8 +289,8 @@ public class MetaWhatsAppService {
 
             payload.put("template", template);
 
-            sendRequest(payload);
-            logger.info("Template message '{}' sent successfully to {}", templateName, to);
+            return sendRequest(toNumber, payload)
+                    .whenComplete((result, error) -> logOutcome("Template message '" + templateName + "'", to, error));
 
         } catch (Exception e) {
             logger.error("Error sending template message to {}: {}", to, e.getMessage(), e);
@@ -276,29 +299,21 @@ public class MetaWhatsAppService {
     }
 
     /**
-     * Helper method to send HTTP request to Meta API
+     * Helper method to queue a Meta API request in the outbox
      */
-    private void sendRequest(Map<String, Object> payload) throws Exception {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(accessToken);
-
+    private CompletableFuture<Void> sendRequest(String toNumber, Map<String, Object> payload)
+            throws JsonProcessingException {
         String jsonPayload = objectMapper.writeValueAsString(payload);
-        logger.debug("Sending request to Meta API: {}", jsonPayload);
+        logger.debug("Queueing request to Meta API: {}", jsonPayload);
 
-        HttpEntity<String> entity = new HttpEntity<>(jsonPayload, headers);
-
-        String url = apiBaseUrl + "/messages";
-        ResponseEntity<String> response = restTemplate.exchange(
-                url,
-                HttpMethod.POST,
-                entity,
-                String.class);
+        return outboundMessageDispatcher.enqueue(toNumber, jsonPayload);
+    }
 
-        if (response.getStatusCode().is2xxSuccessful()) {
-            logger.debug("Meta API response: {}", response.getBody());
+    private void logOutcome(String description, String to, Throwable error) {
+        if (error == null) {
+            logger.info("{} sent successfully to {}", description, to);
         } else {
-            throw new RuntimeException("Meta API returned error: " + response.getStatusCode());
+            logger.error("Error sending WhatsApp message to {}: {}", to, error.getMessage(), error);
         }
     }
 
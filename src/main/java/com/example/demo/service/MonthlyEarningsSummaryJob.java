@@ -0,0 +1,147 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TutorEarningsSummary;
+import com.example.demo.entity.BatchJobCheckpoint;
+import com.example.demo.entity.Payment;
+import com.example.demo.repository.BatchJobCheckpointRepository;
+import com.example.demo.repository.PaymentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Sends every tutor their earnings summary for a month.
+ * Totals come from one GROUP BY query per chunk of tutors, taken in tutor id
+ * order. Each chunk's messages are queued on the outbox in the same
+ * transaction that advances the run's BatchJobCheckpoint, so a run that
+ * stops part-way resumes with the next tutor and nobody gets a summary twice.
+ * Before each chunk the job waits for the outbox to drain below a limit, so
+ * it does not flood the queue ahead of the Meta rate limit.
+ */
+@Service
+public class MonthlyEarningsSummaryJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonthlyEarningsSummaryJob.class);
+
+    static final String JOB_NAME = "monthly-earnings-summary";
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private BatchJobCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private MetaWhatsAppService metaWhatsAppService;
+
+    @Autowired
+    private OutboundMessageDispatcher outboundMessageDispatcher;
+
+    @Value("${batch.earnings-summary.chunk-size:100}")
+    private int chunkSize;
+
+    @Value("${batch.earnings-summary.max-outbox-depth:1000}")
+    private long maxOutboxDepth;
+
+    private final TransactionTemplate transaction;
+
+    public MonthlyEarningsSummaryJob(PlatformTransactionManager transactionManager) {
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Send the summaries for a month, or carry on from where an earlier run stopped
+     */
+    public synchronized void run(YearMonth month) {
+        String runKey = JOB_NAME + ":" + month;
+        BatchJobCheckpoint checkpoint = checkpointRepository.findById(runKey)
+                .orElseGet(() -> checkpointRepository.saveAndFlush(new BatchJobCheckpoint(runKey)));
+        if (checkpoint.isCompleted()) {
+            logger.info("Earnings summaries for {} already sent", month);
+            return;
+        }
+        if (checkpoint.getProcessed() > 0) {
+            logger.info("Resuming earnings summaries for {} after tutor {} ({} sent)",
+                    month, checkpoint.getLastKey(), checkpoint.getProcessed());
+        }
+
+        LocalDateTime start = month.atDay(1).atStartOfDay();
+        LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+
+        try {
+            boolean more = true;
+            while (more) {
+                awaitOutboxCapacity();
+                more = Boolean.TRUE.equals(transaction.execute(status -> sendChunk(runKey, month, start, end)));
+            }
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("Earnings summaries for {} are being sent by another instance", month);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        BatchJobCheckpoint done = checkpointRepository.findById(runKey).orElse(checkpoint);
+        logger.info("Sent earnings summaries for {} to {} tutors", month, done.getProcessed());
+    }
+
+    /**
+     * Finish runs that stopped part-way, e.g. because the instance was restarted
+     */
+    public void resumeUnfinished() {
+        String prefix = JOB_NAME + ":";
+        for (BatchJobCheckpoint checkpoint : checkpointRepository.findByRunKeyStartingWithAndCompletedAtIsNull(prefix)) {
+            run(YearMonth.parse(checkpoint.getRunKey().substring(prefix.length())));
+        }
+    }
+
+    /**
+     * Queue one chunk and advance the checkpoint; returns whether more tutors remain
+     */
+    private boolean sendChunk(String runKey, YearMonth month, LocalDateTime start, LocalDateTime end) {
+        BatchJobCheckpoint checkpoint = checkpointRepository.findById(runKey)
+                .orElseThrow(() -> new IllegalStateException("Checkpoint " + runKey + " missing"));
+        if (checkpoint.isCompleted()) {
+            return false;
+        }
+
+        List<TutorEarningsSummary> chunk = paymentRepository.summarizeTutorEarnings(Payment.PaymentStatus.PAID,
+                start, end, checkpoint.getLastKey(), PageRequest.of(0, chunkSize));
+
+        for (TutorEarningsSummary summary : chunk) {
+            metaWhatsAppService.sendTextMessage(summary.phoneNumber(),
+                    paymentService.monthlySummaryMessage(summary, month));
+        }
+
+        if (!chunk.isEmpty()) {
+            checkpoint.advance(chunk.get(chunk.size() - 1).tutorId(), chunk.size());
+        }
+        boolean more = chunk.size() == chunkSize;
+        if (!more) {
+            checkpoint.complete();
+        }
+        // Version check: fails if another instance committed this chunk first
+        checkpointRepository.saveAndFlush(checkpoint);
+        return more;
+    }
+
+    private void awaitOutboxCapacity() throws InterruptedException {
+        while (outboundMessageDispatcher.getQueueDepth() > maxOutboxDepth) {
+            Thread.sleep(1000);
+        }
+    }
+}
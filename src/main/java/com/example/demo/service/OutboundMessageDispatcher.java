@@ -0,0 +1,445 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.OutboundMessage;
+import com.example.demo.repository.OutboundMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers outbox rows to Meta.
+ * Messages are persisted with the business transaction that produced them and
+ * drained after commit, in batches, by a small worker pool:
+ * each recipient's messages are sent in order, every send takes a permit from
+ * the shared token bucket, and retryable failures (429, 5xx, timeouts) are
+ * rescheduled with exponential backoff and jitter.
+ * The queue depth is tracked from enqueues and sends on this instance and
+ * resynced with a count once a minute, so it is approximate in between.
+ * Sent and failed rows are purged after the retention period.
+ */
+@Service
+public class OutboundMessageDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundMessageDispatcher.class);
+
+    @Autowired
+    private OutboundMessageRepository outboundMessageRepository;
+
+    @Autowired
+    private MetaApiTransport transport;
+
+    @Autowired
+    private TokenBucketRateLimiter rateLimiter;
+
+    @Autowired
+    private SchedulerLeaseService leaseService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${meta.whatsapp.access.token}")
+    private String accessToken;
+
+    @Value("${meta.whatsapp.phone.number.id}")
+    private String phoneNumberId;
+
+    @Value("${outbound.dispatcher.batch-size:50}")
+    private int batchSize;
+
+    @Value("${outbound.dispatcher.workers:4}")
+    private int workerCount;
+
+    @Value("${outbound.dispatcher.send-timeout-ms:30000}")
+    private long sendTimeoutMs;
+
+    @Value("${outbound.dispatcher.claim-timeout-minutes:5}")
+    private long claimTimeoutMinutes;
+
+    @Value("${outbound.retry.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${outbound.retry.base-delay-ms:1000}")
+    private long baseDelayMs;
+
+    @Value("${outbound.retry.max-delay-ms:300000}")
+    private long maxDelayMs;
+
+    @Value("${outbound.dispatcher.delivery-wait-minutes:30}")
+    private long deliveryWaitMinutes;
+
+    @Value("${outbound.retention-days:14}")
+    private long retentionDays;
+
+    // Futures handed out by enqueue, completed once the row is sent or given up on, here or
+    // by the sweep when another instance sent it
+    private final Map<Long, Delivery> deliveries = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+    private final AtomicLong queueDepth = new AtomicLong();
+
+    private String messagesUrl;
+    private ExecutorService drainer;
+    private ExecutorService workers;
+
+    private Counter sentCounter;
+    private Counter retryCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    public void init() {
+        this.messagesUrl = String.format("https://graph.facebook.com/%s/%s/messages",
+                MetaWhatsAppService.META_API_VERSION, phoneNumberId);
+
+        this.drainer = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "outbox-drainer"));
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount,
+                runnable -> new Thread(runnable, "outbox-worker-" + threadCount.incrementAndGet()));
+
+        Gauge.builder("whatsapp.outbox.depth", queueDepth, AtomicLong::get)
+                .description("Outbound messages waiting to be sent")
+                .register(meterRegistry);
+        sentCounter = Counter.builder("whatsapp.outbox.sent").register(meterRegistry);
+        retryCounter = Counter.builder("whatsapp.outbox.retries").register(meterRegistry);
+        failedCounter = Counter.builder("whatsapp.outbox.failed").register(meterRegistry);
+
+        // Rows left mid-send by a crash go back to the queue
+        releaseStaleClaims();
+        queueDepth.set(outboundMessageRepository.countByStatus(OutboundMessage.OutboundStatus.PENDING));
+    }
+
+    /**
+     * Add a message to the outbox as part of the caller's unit of work.
+     * The row commits (and is handed to the drainer) with the caller's
+     * transaction, so a rollback also discards the message; without a
+     * transaction the row is committed on its own.
+     * The returned future completes when Meta accepts the message, or
+     * exceptionally if it is given up on or its transaction rolls back.
+     */
+    @Transactional
+    public CompletableFuture<Void> enqueue(String recipient, String payload) {
+        OutboundMessage message = outboundMessageRepository.save(new OutboundMessage(recipient, payload));
+
+        Long messageId = message.getId();
+        CompletableFuture<Void> delivery = new CompletableFuture<>();
+        deliveries.put(messageId, new Delivery(delivery));
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                queueDepth.incrementAndGet();
+                requestDrain();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED && deliveries.remove(messageId) != null) {
+                    delivery.completeExceptionally(
+                            new IllegalStateException("Outbound message discarded by transaction rollback"));
+                }
+            }
+        });
+
+        return delivery;
+    }
+
+    /**
+     * Ask the drainer to run; cheap to call repeatedly
+     */
+    public void requestDrain() {
+        drainRequested.set(true);
+        if (draining.compareAndSet(false, true)) {
+            drainer.execute(this::drainLoop);
+        }
+    }
+
+    /**
+     * Picks up retries that have become due and rows left by a previous run
+     */
+    @Scheduled(fixedDelayString = "${outbound.dispatcher.poll-interval-ms:1000}")
+    public void poll() {
+        requestDrain();
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void releaseStaleClaims() {
+        int released = outboundMessageRepository.releaseStaleClaims(
+                LocalDateTime.now().minusMinutes(claimTimeoutMinutes),
+                OutboundMessage.OutboundStatus.PENDING, OutboundMessage.OutboundStatus.SENDING);
+        if (released > 0) {
+            logger.warn("Released {} outbound messages abandoned mid-send", released);
+        }
+    }
+
+    /**
+     * Resync the queue depth and settle futures whose rows reached a final
+     * state without this instance sending them, e.g. sent by another
+     * instance. Futures still waiting after delivery-wait-minutes fail.
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void sweepDeliveries() {
+        queueDepth.set(outboundMessageRepository.countByStatus(OutboundMessage.OutboundStatus.PENDING));
+
+        long settleBefore = System.currentTimeMillis() - 60000;
+        List<Long> waiting = deliveries.entrySet().stream()
+                .filter(entry -> entry.getValue().enqueuedAt < settleBefore)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        if (waiting.isEmpty()) {
+            return;
+        }
+
+        for (List<Long> chunk : chunks(waiting, 500)) {
+            for (OutboundMessage message : outboundMessageRepository.findAllById(chunk)) {
+                if (message.getStatus() == OutboundMessage.OutboundStatus.SENT) {
+                    complete(message.getId(), null);
+                } else if (message.getStatus() == OutboundMessage.OutboundStatus.FAILED) {
+                    complete(message.getId(), new IllegalStateException(
+                            "Outbound message failed: " + message.getLastError()));
+                }
+            }
+        }
+
+        long expireBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(deliveryWaitMinutes);
+        for (Long messageId : waiting) {
+            Delivery delivery = deliveries.get(messageId);
+            if (delivery != null && delivery.enqueuedAt < expireBefore) {
+                complete(messageId, new TimeoutException(
+                        "Outbound message " + messageId + " not delivered within " + deliveryWaitMinutes + " minutes"));
+            }
+        }
+    }
+
+    /**
+     * Remove sent and failed messages older than the retention period
+     * Runs daily at 4:30 AM
+     */
+    @Scheduled(cron = "0 30 4 * * *")
+    public void purgeFinished() {
+        if (!leaseService.tryAcquire("outbox-purge", Duration.ofHours(1))) {
+            return;
+        }
+        int removed = outboundMessageRepository.deleteFinishedBefore(LocalDateTime.now().minusDays(retentionDays),
+                List.of(OutboundMessage.OutboundStatus.SENT, OutboundMessage.OutboundStatus.FAILED));
+        logger.info("Purged {} outbound messages older than {} days", removed, retentionDays);
+    }
+
+    public long getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    private void drainLoop() {
+        try {
+            while (drainRequested.getAndSet(false)) {
+                while (drainBatch() > 0) {
+                    // Keep going while there is deliverable work
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error draining outbound messages: {}", e.getMessage(), e);
+        } finally {
+            draining.set(false);
+        }
+
+        // A request may have arrived between the last check and releasing the flag
+        if (drainRequested.get()) {
+            requestDrain();
+        }
+    }
+
+    private int drainBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboundMessage> deliverable = outboundMessageRepository.findDeliverable(now,
+                OutboundMessage.OutboundStatus.PENDING, OutboundMessage.OutboundStatus.SENDING,
+                PageRequest.of(0, batchSize));
+
+        if (deliverable.isEmpty()) {
+            return 0;
+        }
+
+        String claimToken = UUID.randomUUID().toString();
+        List<Long> ids = deliverable.stream().map(OutboundMessage::getId).collect(Collectors.toList());
+        if (outboundMessageRepository.claim(ids, claimToken, now,
+                OutboundMessage.OutboundStatus.PENDING, OutboundMessage.OutboundStatus.SENDING) == 0) {
+            return 0; // Another instance claimed them first
+        }
+
+        List<OutboundMessage> claimed = outboundMessageRepository.findByClaimTokenOrderByIdAsc(claimToken);
+        Map<String, List<OutboundMessage>> byRecipient = claimed.stream()
+                .collect(Collectors.groupingBy(OutboundMessage::getRecipient, LinkedHashMap::new,
+                        Collectors.toList()));
+
+        List<CompletableFuture<Void>> recipientRuns = new ArrayList<>(byRecipient.size());
+        for (List<OutboundMessage> messages : byRecipient.values()) {
+            recipientRuns.add(CompletableFuture.runAsync(() -> deliverInOrder(messages), workers));
+        }
+        CompletableFuture.allOf(recipientRuns.toArray(new CompletableFuture[0])).join();
+
+        return claimed.size();
+    }
+
+    private void deliverInOrder(List<OutboundMessage> messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            if (!deliver(messages.get(i))) {
+                // Hold back this recipient's later messages until the failed one goes through
+                List<Long> heldBack = messages.subList(i + 1, messages.size()).stream()
+                        .map(OutboundMessage::getId)
+                        .collect(Collectors.toList());
+                if (!heldBack.isEmpty()) {
+                    outboundMessageRepository.release(heldBack,
+                            OutboundMessage.OutboundStatus.PENDING, OutboundMessage.OutboundStatus.SENDING);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Send one message. Returns false if it was rescheduled for a retry.
+     */
+    private boolean deliver(OutboundMessage message) {
+        Long messageId = message.getId();
+        try {
+            rateLimiter.acquire();
+            transport.post(messagesUrl, accessToken, message.getPayload())
+                    .get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+
+            outboundMessageRepository.markSent(messageId, LocalDateTime.now(), OutboundMessage.OutboundStatus.SENT);
+            decrementQueueDepth();
+            sentCounter.increment();
+            complete(messageId, null);
+            return true;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outboundMessageRepository.release(List.of(messageId),
+                    OutboundMessage.OutboundStatus.PENDING, OutboundMessage.OutboundStatus.SENDING);
+            return false;
+
+        } catch (Exception e) {
+            Throwable cause = unwrap(e);
+            String error = truncate(String.valueOf(cause.getMessage()), 1000);
+            int attempt = message.getAttempts() + 1;
+
+            if (isRetryable(cause) && attempt < maxAttempts) {
+                LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoffMillis(attempt), ChronoUnit.MILLIS);
+                outboundMessageRepository.markForRetry(messageId, nextAttemptAt, error,
+                        OutboundMessage.OutboundStatus.PENDING);
+                retryCounter.increment();
+                logger.warn("Sending message {} to {} failed (attempt {}), retrying at {}: {}",
+                        messageId, message.getRecipient(), attempt, nextAttemptAt, error);
+                return false;
+            }
+
+            outboundMessageRepository.markFailed(messageId, error, OutboundMessage.OutboundStatus.FAILED);
+            decrementQueueDepth();
+            failedCounter.increment();
+            logger.error("Giving up on message {} to {} after {} attempts: {}",
+                    messageId, message.getRecipient(), attempt, error);
+            complete(messageId, cause);
+            return true;
+        }
+    }
+
+    private void complete(Long messageId, Throwable error) {
+        Delivery delivery = deliveries.remove(messageId);
+        if (delivery == null) {
+            return; // Enqueued before a restart or on another instance
+        }
+        if (error == null) {
+            delivery.future.complete(null);
+        } else {
+            delivery.future.completeExceptionally(error);
+        }
+    }
+
+    private void decrementQueueDepth() {
+        // Rows enqueued elsewhere are only counted at the next resync
+        queueDepth.updateAndGet(depth -> Math.max(depth - 1, 0));
+    }
+
+    private static <T> List<List<T>> chunks(List<T> items, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += size) {
+            chunks.add(items.subList(i, Math.min(i + size, items.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Exponential backoff with equal jitter: half the capped delay plus a random share of the other half
+     */
+    private long backoffMillis(int attempt) {
+        long capped = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        long half = capped / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    private boolean isRetryable(Throwable error) {
+        if (error instanceof MetaApiException) {
+            int status = ((MetaApiException) error).getStatusCode();
+            return status == 408 || status == 429 || status >= 500;
+        }
+        // Connection failures and timeouts
+        return true;
+    }
+
+    private Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private String truncate(String text, int maxLength) {
+        return text.length() <= maxLength ? text : text.substring(0, maxLength);
+    }
+
+    private static final class Delivery {
+
+        private final CompletableFuture<Void> future;
+        private final long enqueuedAt = System.currentTimeMillis();
+
+        private Delivery(CompletableFuture<Void> future) {
+            this.future = future;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        drainer.shutdown();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PasswordCheck;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Hashes and verifies passwords with BCrypt on a small dedicated pool.
+ * BCrypt is deliberately slow, so the work is kept off the conversation lanes'
+ * own CPU budget and capped at a fixed number of threads; when the pool's
+ * queue is full the returned future fails instead of piling up work.
+ * Stored values that are not BCrypt hashes are treated as legacy plaintext:
+ * they are compared in constant time and, on a match, a hash is returned for
+ * the caller to store. Hashes made with a lower cost are upgraded the same way.
+ */
+@Service
+public class PasswordService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordService.class);
+
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./A-Za-z0-9]{53}$");
+
+    @Value("${security.password.bcrypt-strength:10}")
+    private int strength;
+
+    @Value("${security.password.threads:0}")
+    private int configuredThreads;
+
+    @Value("${security.password.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${security.password.timeout-ms:5000}")
+    private long timeoutMs;
+
+    private BCryptPasswordEncoder encoder;
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        encoder = new BCryptPasswordEncoder(strength);
+
+        int threads = configuredThreads > 0
+                ? configuredThreads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "password-hasher-" + threadCount.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        logger.info("Password hashing: BCrypt strength {} on {} threads (queue capacity {})",
+                strength, threads, queueCapacity);
+    }
+
+    /**
+     * Hash a new password
+     */
+    public CompletableFuture<String> hash(String rawPassword) {
+        return submit(() -> encoder.encode(rawPassword));
+    }
+
+    /**
+     * Check a password against the stored value, which may be a BCrypt hash
+     * or a legacy plaintext password
+     */
+    public CompletableFuture<PasswordCheck> verify(String rawPassword, String storedPassword) {
+        if (rawPassword == null || storedPassword == null) {
+            return CompletableFuture.completedFuture(PasswordCheck.mismatch());
+        }
+
+        return submit(() -> {
+            if (!isHashed(storedPassword)) {
+                boolean matches = MessageDigest.isEqual(
+                        rawPassword.getBytes(StandardCharsets.UTF_8),
+                        storedPassword.getBytes(StandardCharsets.UTF_8));
+                return matches ? new PasswordCheck(true, encoder.encode(rawPassword)) : PasswordCheck.mismatch();
+            }
+
+            if (!encoder.matches(rawPassword, storedPassword)) {
+                return PasswordCheck.mismatch();
+            }
+            String upgraded = encoder.upgradeEncoding(storedPassword) ? encoder.encode(rawPassword) : null;
+            return new PasswordCheck(true, upgraded);
+        });
+    }
+
+    /**
+     * How long callers that need the answer before replying should wait for it
+     */
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    static boolean isHashed(String storedPassword) {
+        return BCRYPT_HASH.matcher(storedPassword).matches();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Password hashing queue full, rejecting request");
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,316 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentCallback;
+import com.example.demo.entity.Payment;
+import com.example.demo.entity.PaymentGatewayEvent;
+import com.example.demo.repository.PaymentGatewayEventRepository;
+import com.example.demo.repository.PaymentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies payment gateway callbacks to payments.
+ * The webhook only records each verified event in the payment_gateway_events
+ * inbox, where the event id doubles as the dedup key, and wakes this
+ * reconciler. A single drainer then claims due events in batches and applies
+ * each one in its own transaction together with marking it processed, so
+ * receipts and notifications (queued on the outbox in that transaction) never
+ * run on the callback thread. Settlement bursts are absorbed by the inbox:
+ * draining pauses while the outbox is backed up, and failures are retried
+ * with backoff. Finished events are kept for the retention period, which
+ * should outlast the gateway's redelivery window so late duplicates are still
+ * recognised.
+ */
+@Service
+public class PaymentEventReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentEventReconciler.class);
+
+    @Autowired
+    private PaymentGatewayEventRepository eventRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private OutboundMessageDispatcher outboundMessageDispatcher;
+
+    @Autowired
+    private SchedulerLeaseService leaseService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${payments.reconcile.batch-size:50}")
+    private int batchSize;
+
+    @Value("${payments.reconcile.max-outbox-depth:1000}")
+    private long maxOutboxDepth;
+
+    @Value("${payments.reconcile.claim-timeout-minutes:5}")
+    private long claimTimeoutMinutes;
+
+    @Value("${payments.reconcile.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${payments.reconcile.base-delay-ms:5000}")
+    private long baseDelayMs;
+
+    @Value("${payments.reconcile.max-delay-ms:600000}")
+    private long maxDelayMs;
+
+    @Value("${payments.reconcile.retention-days:90}")
+    private long retentionDays;
+
+    private final TransactionTemplate transaction;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    private ExecutorService drainer;
+
+    private Counter receivedCounter;
+    private Counter duplicateCounter;
+    private Counter appliedCounter;
+    private Counter failedCounter;
+
+    public PaymentEventReconciler(PlatformTransactionManager transactionManager) {
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void init() {
+        this.drainer = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "payment-reconciler"));
+
+        receivedCounter = Counter.builder("payments.gateway.events").tag("result", "received").register(meterRegistry);
+        duplicateCounter = Counter.builder("payments.gateway.events").tag("result", "duplicate").register(meterRegistry);
+        appliedCounter = Counter.builder("payments.gateway.events").tag("result", "applied").register(meterRegistry);
+        failedCounter = Counter.builder("payments.gateway.events").tag("result", "failed").register(meterRegistry);
+
+        // Events left mid-batch by a crash go back to the inbox
+        releaseStaleClaims();
+    }
+
+    /**
+     * Record a verified callback in the inbox and wake the drainer.
+     * Returns false if the gateway already delivered this event.
+     */
+    public boolean accept(PaymentCallback callback) {
+        try {
+            eventRepository.saveAndFlush(new PaymentGatewayEvent(callback.eventId(), callback.type(),
+                    callback.paymentReference(), callback.transactionReference(), callback.amount()));
+        } catch (DataIntegrityViolationException e) {
+            duplicateCounter.increment();
+            return false;
+        }
+
+        receivedCounter.increment();
+        requestDrain();
+        return true;
+    }
+
+    /**
+     * Ask the drainer to run; cheap to call repeatedly
+     */
+    public void requestDrain() {
+        drainRequested.set(true);
+        if (draining.compareAndSet(false, true)) {
+            drainer.execute(this::drainLoop);
+        }
+    }
+
+    /**
+     * Picks up retries that have become due, events deferred while the outbox
+     * was backed up, and events recorded by another instance
+     */
+    @Scheduled(fixedDelayString = "${payments.reconcile.poll-interval-ms:5000}")
+    public void poll() {
+        requestDrain();
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void releaseStaleClaims() {
+        int released = eventRepository.releaseStaleClaims(
+                LocalDateTime.now().minusMinutes(claimTimeoutMinutes),
+                PaymentGatewayEvent.EventStatus.PENDING, PaymentGatewayEvent.EventStatus.PROCESSING);
+        if (released > 0) {
+            logger.warn("Released {} payment gateway events abandoned mid-batch", released);
+        }
+    }
+
+    /**
+     * Remove processed and failed events older than the retention period
+     * Runs daily at 4:20 AM
+     */
+    @Scheduled(cron = "0 20 4 * * *")
+    public void purgeFinished() {
+        if (!leaseService.tryAcquire("payment-events-purge", Duration.ofHours(1))) {
+            return;
+        }
+        int removed = eventRepository.deleteFinishedBefore(LocalDateTime.now().minusDays(retentionDays),
+                List.of(PaymentGatewayEvent.EventStatus.PROCESSED, PaymentGatewayEvent.EventStatus.FAILED));
+        logger.info("Purged {} payment gateway events older than {} days", removed, retentionDays);
+    }
+
+    private void drainLoop() {
+        try {
+            while (drainRequested.getAndSet(false)) {
+                while (drainBatch() > 0) {
+                    // Keep going while there is due work
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error reconciling payment gateway events: {}", e.getMessage(), e);
+        } finally {
+            draining.set(false);
+        }
+
+        // A request may have arrived between the last check and releasing the flag
+        if (drainRequested.get()) {
+            requestDrain();
+        }
+    }
+
+    private int drainBatch() {
+        if (outboundMessageDispatcher.getQueueDepth() > maxOutboxDepth) {
+            logger.info("Outbox is backed up, deferring payment gateway events");
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<String> ids = eventRepository.findDueIds(now, PaymentGatewayEvent.EventStatus.PENDING,
+                PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        String claimToken = UUID.randomUUID().toString();
+        if (eventRepository.claim(ids, claimToken, now,
+                PaymentGatewayEvent.EventStatus.PENDING, PaymentGatewayEvent.EventStatus.PROCESSING) == 0) {
+            return 0; // Another instance claimed them first
+        }
+
+        List<PaymentGatewayEvent> claimed = eventRepository.findByClaimTokenOrderByReceivedAtAsc(claimToken);
+        for (PaymentGatewayEvent event : claimed) {
+            process(event);
+        }
+        return claimed.size();
+    }
+
+    private void process(PaymentGatewayEvent event) {
+        String eventId = event.getEventId();
+        try {
+            transaction.executeWithoutResult(status -> {
+                String note = apply(event);
+                eventRepository.markProcessed(eventId, LocalDateTime.now(), note,
+                        PaymentGatewayEvent.EventStatus.PROCESSED);
+            });
+            appliedCounter.increment();
+
+        } catch (RejectedEventException e) {
+            eventRepository.markFailed(eventId, e.getMessage(), PaymentGatewayEvent.EventStatus.FAILED);
+            failedCounter.increment();
+            logger.error("Rejected payment gateway event {}: {}", eventId, e.getMessage());
+
+        } catch (Exception e) {
+            String error = truncate(String.valueOf(e.getMessage()), 1000);
+            int attempt = event.getAttempts() + 1;
+
+            if (attempt < maxAttempts) {
+                LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoffMillis(attempt), ChronoUnit.MILLIS);
+                eventRepository.markForRetry(eventId, nextAttemptAt, error, PaymentGatewayEvent.EventStatus.PENDING);
+                logger.warn("Applying payment gateway event {} failed (attempt {}), retrying at {}: {}",
+                        eventId, attempt, nextAttemptAt, error);
+                return;
+            }
+
+            eventRepository.markFailed(eventId, error, PaymentGatewayEvent.EventStatus.FAILED);
+            failedCounter.increment();
+            logger.error("Giving up on payment gateway event {} after {} attempts: {}", eventId, attempt, error);
+        }
+    }
+
+    /**
+     * Apply one event to its payment; returns a note when there was nothing to do
+     */
+    private String apply(PaymentGatewayEvent event) {
+        if (!PaymentCallback.PAYMENT_SUCCEEDED.equals(event.getType())) {
+            return "Ignored event type " + event.getType();
+        }
+
+        // Not found is retried: the callback can overtake the commit that created the payment
+        Payment payment = paymentRepository.findByPaymentReference(event.getPaymentReference())
+                .orElseThrow(() -> new IllegalStateException(
+                        "No payment with reference " + event.getPaymentReference()));
+
+        if (payment.getStatus() == Payment.PaymentStatus.PAID) {
+            return "Payment already completed";
+        }
+        if (payment.getStatus() == Payment.PaymentStatus.REFUNDED) {
+            throw new RejectedEventException("Payment " + payment.getId() + " was refunded");
+        }
+        if (event.getAmount() == null) {
+            throw new RejectedEventException("No amount for payment " + payment.getId());
+        }
+        if (event.getAmount().compareTo(payment.getTotalAmount()) != 0) {
+            throw new RejectedEventException("Amount " + event.getAmount() + " does not match payment "
+                    + payment.getId() + " total " + payment.getTotalAmount());
+        }
+
+        paymentService.completePayment(payment.getId(), event.getTransactionReference());
+        return null;
+    }
+
+    /**
+     * Exponential backoff with equal jitter: half the capped delay plus a random share of the other half
+     */
+    private long backoffMillis(int attempt) {
+        long capped = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        long half = capped / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    private String truncate(String text, int maxLength) {
+        return text.length() <= maxLength ? text : text.substring(0, maxLength);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        drainer.shutdown();
+    }
+
+    /**
+     * An event that will never apply, e.g. an amount mismatch; not retried
+     */
+    private static final class RejectedEventException extends RuntimeException {
+
+        private RejectedEventException(String message) {
+            super(message);
+        }
+    }
+}
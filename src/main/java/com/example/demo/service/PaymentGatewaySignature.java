@@ -0,0 +1,72 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Locale;
+
+/**
+ * HMAC-SHA256 signatures on payment gateway callbacks.
+ * The gateway signs the raw request body with the shared webhook secret and
+ * sends the hex digest in the X-Payment-Signature header.
+ */
+@Component
+public class PaymentGatewaySignature {
+
+    public static final String HEADER = "X-Payment-Signature";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    @Value("${payments.gateway.webhook-secret}")
+    private String webhookSecret;
+
+    private SecretKeySpec key;
+
+    @PostConstruct
+    public void init() {
+        if (webhookSecret == null || webhookSecret.isEmpty()) {
+            throw new IllegalStateException("payments.gateway.webhook-secret must be set");
+        }
+        key = new SecretKeySpec(webhookSecret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    public String sign(byte[] payload) {
+        byte[] digest = mac().doFinal(payload);
+        char[] chars = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            chars[i * 2] = HEX[(digest[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[digest[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Whether the signature matches the payload; compared in constant time
+     */
+    public boolean verify(byte[] payload, String signature) {
+        if (signature == null) {
+            return false;
+        }
+        byte[] expected = sign(payload).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = signature.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    private Mac mac() {
+        // Mac instances are not thread-safe and cheap to create
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 not available", e);
+        }
+    }
+}
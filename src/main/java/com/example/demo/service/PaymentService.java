@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.TutorEarningsSummary;
 import com.example.demo.entity.Payment;
 import com.example.demo.entity.TutoringSession;
 import com.example.demo.entity.User;
@@ -8,14 +9,21 @@ import com.example.demo.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.temporal.TemporalAdjusters;
-import java.util.List;
-
+import java.time.YearMonth;
+
+/**
+ * Payments, commission tiers and payment notifications.
+ * Like SessionService, rule violations are reported as SessionRuleViolation
+ * before anything is written and do not roll back the caller's transaction;
+ * any other failure does. Callers that have already written must treat a
+ * violation from here as a failure of their own.
+ */
 @Service
 public class PaymentService {
 
@@ -37,14 +45,26 @@ public class PaymentService {
     @Autowired
     private MetaWhatsAppService metaWhatsAppService;
 
+    @Autowired
+    private MessageTemplates messageTemplates;
+
+    @Autowired
+    private TutorEarningsLedger earningsLedger;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Value("${payments.gateway.pay-url:https://pay.tutormate.com/pay/}")
+    private String payUrl;
+
     /**
      * Create payment for a confirmed session
      */
-    @Transactional
+    @Transactional(noRollbackFor = SessionRuleViolation.class)
     public Payment createPayment(TutoringSession session) {
         // Check if payment already exists
         if (paymentRepository.findBySession(session).isPresent()) {
-            throw new RuntimeException("Payment already exists for this session");
+            throw new SessionRuleViolation("Payment already exists for this session");
         }
 
         // Calculate commission based on tutor's earnings
@@ -56,19 +76,16 @@ public class PaymentService {
         Payment payment = new Payment(session, session.getStudent(), session.getTutor(),
                 session.getPrice(), commission);
 
-        // Generate payment link
+        // Generate payment link; it is built from the reference, so set that first
+        payment.setPaymentReference(idGenerator.nextReference("PAY"));
         String paymentLink = generatePaymentLink(payment);
         payment.setPaymentLink(paymentLink);
-        payment.setPaymentReference("PAY-" + System.currentTimeMillis());
 
         payment = paymentRepository.save(payment);
 
         // Send payment link to student
         sendPaymentLinkToStudent(payment);
 
-        // Check if tutor reached a new commission tier
-        checkAndNotifyCommissionTierChange(session.getTutor(), totalEarnings);
-
         logger.info("Created payment {} for session {}", payment.getId(), session.getId());
 
         return payment;
@@ -77,18 +94,18 @@ public class PaymentService {
     /**
      * Mark payment as completed
      */
-    @Transactional
+    @Transactional(noRollbackFor = SessionRuleViolation.class)
     public void completePayment(Long paymentId, String transactionReference) {
         Payment payment = paymentRepository.findById(paymentId)
-                .orElseThrow(() -> new RuntimeException("Payment not found"));
+                .orElseThrow(() -> new SessionRuleViolation("Payment not found"));
 
         if (payment.getStatus() == Payment.PaymentStatus.PAID) {
-            throw new RuntimeException("Payment already completed");
+            throw new SessionRuleViolation("Payment already completed");
         }
 
         payment.setStatus(Payment.PaymentStatus.PAID);
         payment.setPaidAt(LocalDateTime.now());
-        payment.setPaymentReference(transactionReference);
+        payment.setTransactionReference(transactionReference);
 
         // Generate receipt
         String receiptUrl = generateReceipt(payment);
@@ -96,11 +113,17 @@ public class PaymentService {
 
         paymentRepository.save(payment);
 
+        BigDecimal previousEarnings = earningsLedger.lifetimeEarnings(payment.getTutor().getId());
+        BigDecimal currentEarnings = earningsLedger.recordPaid(payment);
+
         // Notify student
-        sendReceiptToStudent(payment);
+        sendReceiptToStudent(payment, currentEarnings);
 
         // Notify tutor of earnings
-        notifyTutorOfEarnings(payment);
+        notifyTutorOfEarnings(payment, currentEarnings);
+
+        // Check if tutor reached a new commission tier
+        checkAndNotifyCommissionTierChange(payment.getTutor(), previousEarnings, currentEarnings);
 
         logger.info("Payment {} completed", paymentId);
     }
@@ -119,14 +142,10 @@ public class PaymentService {
         if (payment.getStatus() == Payment.PaymentStatus.PAID) {
             payment.setStatus(Payment.PaymentStatus.REFUNDED);
             paymentRepository.save(payment);
+            earningsLedger.recordRefund(payment);
 
             // Process refund
-            String message = String.format(
-                    "💰 *Refund Processed*\n\n" +
-                            "Your payment of R%.2f has been refunded for the cancelled session.\n\n" +
-                            "Session: %s\n" +
-                            "Tutor: %s\n\n" +
-                            "The refund will reflect in your account within 3-5 business days.",
+            String message = messageTemplates.render("payment.refund",
                     payment.getTotalAmount(),
                     session.getSubject().getName(),
                     session.getTutor().getFullName());
@@ -138,53 +157,32 @@ public class PaymentService {
     }
 
     /**
-     * Get tutor's total earnings
+     * Get tutor's total earnings, from the earnings ledger
      */
     public BigDecimal calculateTutorEarnings(User tutor) {
-        BigDecimal earnings = paymentRepository.calculateTotalEarnings(tutor, Payment.PaymentStatus.PAID);
-        return earnings != null ? earnings : BigDecimal.ZERO;
+        return earningsLedger.lifetimeEarnings(tutor.getId());
     }
 
     /**
-     * Get tutor's earnings for current month
+     * Get tutor's earnings for current month, from the earnings ledger
      */
     public BigDecimal calculateMonthlyEarnings(User tutor) {
-        LocalDateTime startOfMonth = LocalDateTime.now().with(TemporalAdjusters.firstDayOfMonth()).withHour(0)
-                .withMinute(0);
-        LocalDateTime endOfMonth = LocalDateTime.now().with(TemporalAdjusters.lastDayOfMonth()).withHour(23)
-                .withMinute(59);
-
-        BigDecimal earnings = paymentRepository.calculateEarningsInPeriod(tutor, Payment.PaymentStatus.PAID,
-                startOfMonth, endOfMonth);
-        return earnings != null ? earnings : BigDecimal.ZERO;
+        return earningsLedger.monthEarnings(tutor.getId(), YearMonth.now());
     }
 
     /**
-     * Send monthly earnings summary
+     * Monthly earnings summary text for one tutor, from MonthlyEarningsSummaryJob
      */
-    public void sendMonthlyEarningsSummary(User tutor) {
-        BigDecimal monthlyEarnings = calculateMonthlyEarnings(tutor);
-        BigDecimal totalEarnings = calculateTutorEarnings(tutor);
-        BigDecimal commissionRate = getCommissionRate(totalEarnings);
+    public String monthlySummaryMessage(TutorEarningsSummary summary, YearMonth month) {
+        BigDecimal totalEarnings = summary.lifetimeEarnings();
 
-        List<Payment> monthPayments = paymentRepository.findByTutorAndStatus(tutor, Payment.PaymentStatus.PAID);
-
-        String message = String.format(
-                "📊 *Monthly Earnings Summary*\n\n" +
-                        "Month: %s\n" +
-                        "Earnings: R%.2f\n" +
-                        "Total Lifetime Earnings: R%.2f\n\n" +
-                        "Current Commission Rate: %.0f%%\n" +
-                        "Sessions Completed: %d\n\n" +
-                        "%s",
-                LocalDateTime.now().getMonth().name(),
-                monthlyEarnings,
+        return messageTemplates.render("payment.monthly-summary",
+                month.getMonth().name() + " " + month.getYear(),
+                summary.monthEarnings(),
                 totalEarnings,
-                commissionRate.multiply(new BigDecimal("100")),
-                monthPayments.size(),
+                getCommissionRate(totalEarnings).multiply(new BigDecimal("100")),
+                summary.monthSessions(),
                 getCommissionTierMessage(totalEarnings));
-
-        metaWhatsAppService.sendTextMessage(tutor.getPhoneNumber(), message);
     }
 
     /**
@@ -202,31 +200,25 @@ public class PaymentService {
 
     private String getCommissionTierMessage(BigDecimal totalEarnings) {
         if (totalEarnings.compareTo(TIER2_THRESHOLD) >= 0) {
-            return "🎉 You're at the highest tier! Keep up the great work!";
+            return messageTemplates.render("payment.tier.top");
         } else if (totalEarnings.compareTo(TIER1_THRESHOLD) >= 0) {
             BigDecimal remaining = TIER2_THRESHOLD.subtract(totalEarnings);
-            return String.format("💪 Earn R%.2f more to reach the top tier (10%% commission)!", remaining);
+            return messageTemplates.render("payment.tier.to-top", remaining);
         } else {
             BigDecimal remaining = TIER1_THRESHOLD.subtract(totalEarnings);
-            return String.format("💪 Earn R%.2f more to reach Tier 2 (15%% commission)!", remaining);
+            return messageTemplates.render("payment.tier.to-second", remaining);
         }
     }
 
-    private void checkAndNotifyCommissionTierChange(User tutor, BigDecimal previousEarnings) {
-        BigDecimal currentEarnings = calculateTutorEarnings(tutor);
+    private void checkAndNotifyCommissionTierChange(User tutor, BigDecimal previousEarnings,
+            BigDecimal currentEarnings) {
         BigDecimal previousRate = getCommissionRate(previousEarnings);
         BigDecimal currentRate = getCommissionRate(currentEarnings);
 
         if (!previousRate.equals(currentRate)) {
-            String message = String.format(
-                    "🎊 *Commission Tier Upgrade!*\n\n" +
-                            "Congratulations! Your commission rate has been reduced to %.0f%%!\n\n" +
-                            "Total Earnings: R%.2f\n" +
-                            "New Rate: %.0f%%\n\n" +
-                            "%s",
+            String message = messageTemplates.render("payment.tier-upgrade",
                     currentRate.multiply(new BigDecimal("100")),
                     currentEarnings,
-                    currentRate.multiply(new BigDecimal("100")),
                     getCommissionTierMessage(currentEarnings));
 
             metaWhatsAppService.sendTextMessage(tutor.getPhoneNumber(), message);
@@ -234,84 +226,60 @@ public class PaymentService {
     }
 
     private void sendPaymentLinkToStudent(Payment payment) {
-        String message = String.format(
-                "💳 *Payment Required*\n\n" +
-                        "Your session has been confirmed! Please complete payment to secure your booking.\n\n" +
-                        "Amount: R%.2f\n" +
-                        "Session: %s\n" +
-                        "Tutor: %s\n" +
-                        "Date: %s\n\n" +
-                        "Reference: %s",
+        String message = messageTemplates.render("payment.link",
                 payment.getTotalAmount(),
                 payment.getSession().getSubject().getName(),
                 payment.getTutor().getFullName(),
-                payment.getSession().getSessionDateTime().toLocalDate(),
+                payment.getSession().getSessionDateTime(),
                 payment.getPaymentReference());
 
         metaWhatsAppService.sendMessageWithLink(payment.getStudent().getPhoneNumber(),
                 message,
                 payment.getPaymentLink(),
-                "Pay Now");
+                messageTemplates.render("payment.link.button"));
     }
 
-    private void sendReceiptToStudent(Payment payment) {
-        String message = String.format(
-                "✅ *Payment Confirmed*\n\n" +
-                        "Thank you for your payment!\n\n" +
-                        "Amount Paid: R%.2f\n" +
-                        "Platform Fee: R%.2f (%.0f%%)\n" +
-                        "Tutor Receives: R%.2f\n\n" +
-                        "Session: %s\n" +
-                        "Tutor: %s\n" +
-                        "Date: %s\n\n" +
-                        "Reference: %s",
+    private void sendReceiptToStudent(Payment payment, BigDecimal tutorEarnings) {
+        String message = messageTemplates.render("payment.receipt",
                 payment.getTotalAmount(),
                 payment.getPlatformCommission(),
-                getCommissionRate(calculateTutorEarnings(payment.getTutor())).multiply(new BigDecimal("100")),
+                getCommissionRate(tutorEarnings).multiply(new BigDecimal("100")),
                 payment.getTutorEarnings(),
                 payment.getSession().getSubject().getName(),
                 payment.getTutor().getFullName(),
-                payment.getSession().getSessionDateTime().toLocalDate(),
+                payment.getSession().getSessionDateTime(),
                 payment.getPaymentReference());
 
         if (payment.getReceiptUrl() != null) {
             metaWhatsAppService.sendMessageWithLink(payment.getStudent().getPhoneNumber(),
                     message,
                     payment.getReceiptUrl(),
-                    "Download Receipt");
+                    messageTemplates.render("payment.receipt.button"));
         } else {
             metaWhatsAppService.sendTextMessage(payment.getStudent().getPhoneNumber(), message);
         }
     }
 
-    private void notifyTutorOfEarnings(Payment payment) {
-        String message = String.format(
-                "💰 *Payment Received*\n\n" +
-                        "Good news! Payment received for your session.\n\n" +
-                        "Your Earnings: R%.2f\n" +
-                        "Platform Fee: R%.2f (%.0f%%)\n\n" +
-                        "Session: %s\n" +
-                        "Student: %s\n" +
-                        "Date: %s\n\n" +
-                        "Total Earnings: R%.2f",
+    private void notifyTutorOfEarnings(Payment payment, BigDecimal tutorEarnings) {
+        String message = messageTemplates.render("payment.received.tutor",
                 payment.getTutorEarnings(),
                 payment.getPlatformCommission(),
-                getCommissionRate(calculateTutorEarnings(payment.getTutor())).multiply(new BigDecimal("100")),
+                getCommissionRate(tutorEarnings).multiply(new BigDecimal("100")),
                 payment.getSession().getSubject().getName(),
                 payment.getStudent().getFullName(),
-                payment.getSession().getSessionDateTime().toLocalDate(),
-                calculateTutorEarnings(payment.getTutor()));
+                payment.getSession().getSessionDateTime(),
+                tutorEarnings);
 
         metaWhatsAppService.sendTextMessage(payment.getTutor().getPhoneNumber(), message);
     }
 
     private String generatePaymentLink(Payment payment) {
         // In production, integrate with payment gateway (PayFast, Stripe, etc.)
-        return "https://pay.tutormate.com/pay/" + payment.getPaymentReference();
+        return payUrl + payment.getPaymentReference();
     }
 
     private String generateReceipt(Payment payment) {
         // In production, generate PDF receipt and upload to cloud storage
-        return "https://receipts.tutormate.com/receipt-" + payment.getId() + ".pdf";
+        return "https://receipts.tutormate.com/receipt-" + idGenerator.nextToken() + ".pdf";
     }
 }
@@ -0,0 +1,75 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Rating;
+import com.example.demo.entity.TutoringSession;
+import com.example.demo.entity.User;
+import com.example.demo.repository.RatingRepository;
+import com.example.demo.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+
+/**
+ * Records ratings and keeps the per-tutor aggregates on users in step.
+ * Listings read ratingCount / ratingSum from the tutor row instead of
+ * running an AVG query per tutor.
+ */
+@Service
+public class RatingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RatingService.class);
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private SchedulerLeaseService leaseService;
+
+    @PostConstruct
+    public void init() {
+        int backfilled = userRepository.backfillRatingAggregates(User.UserRole.TUTOR);
+        if (backfilled > 0) {
+            logger.info("Backfilled rating aggregates for {} tutors", backfilled);
+        }
+    }
+
+    /**
+     * Save a rating and add it to the tutor's aggregates in the same transaction
+     */
+    @Transactional
+    public Rating rateSession(TutoringSession session, User student, int stars) {
+        User tutor = session.getTutor();
+        Rating rating = ratingRepository.save(new Rating(session, tutor, student, stars));
+
+        userRepository.addRating(tutor.getId(), stars);
+        userCache.evict(tutor);
+
+        return rating;
+    }
+
+    /**
+     * Recompute all tutor aggregates from the ratings table, correcting any drift
+     * Runs daily at 3:15 AM
+     */
+    @Scheduled(cron = "0 15 3 * * *")
+    public void rebuildAggregates() {
+        if (!leaseService.tryAcquire("rating-aggregates-rebuild", Duration.ofHours(1))) {
+            return;
+        }
+        int updated = userRepository.rebuildRatingAggregates(User.UserRole.TUTOR);
+        userCache.evictAll();
+        logger.info("Rebuilt rating aggregates for {} tutors", updated);
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.ReminderDelivery;
+import com.example.demo.entity.TutoringSession;
+import com.example.demo.repository.ReminderDeliveryRepository;
+import com.example.demo.repository.TutoringSessionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires session reminders at their due time from an in-memory DelayQueue.
+ * Confirmed sessions starting within the horizon are loaded at startup, and
+ * SessionService schedules or cancels them as bookings are accepted, cancelled
+ * or completed. A periodic refill only queries the slice of time that has
+ * newly entered the horizon.
+ * Before sending, the session is re-read; a reminder whose session is no
+ * longer confirmed or has moved is dropped.
+ * Every instance queues the same reminders; the reminder_deliveries ledger
+ * decides which one sends. Post-session review requests are found by query,
+ * under a lease, and cover a catch-up window so a missed run is made up.
+ */
+@Service
+public class ReminderScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReminderScheduler.class);
+
+    /**
+     * Reminders sent before a session. A reminder that is overdue is still
+     * sent until the next one is due, so a restart does not lose it.
+     */
+    public enum Reminder {
+        DAY_BEFORE(ReminderDelivery.ReminderKind.DAY_BEFORE, Duration.ofHours(24), Duration.ofHours(1)),
+        HOUR_BEFORE(ReminderDelivery.ReminderKind.HOUR_BEFORE, Duration.ofHours(1), Duration.ZERO);
+
+        private final ReminderDelivery.ReminderKind kind;
+        private final Duration lead;
+        private final Duration expiresBefore;
+
+        Reminder(ReminderDelivery.ReminderKind kind, Duration lead, Duration expiresBefore) {
+            this.kind = kind;
+            this.lead = lead;
+            this.expiresBefore = expiresBefore;
+        }
+
+        public ReminderDelivery.ReminderKind getKind() {
+            return kind;
+        }
+
+        LocalDateTime dueAt(LocalDateTime sessionDateTime) {
+            return sessionDateTime.minus(lead);
+        }
+
+        boolean expired(LocalDateTime sessionDateTime, LocalDateTime now) {
+            return !now.isBefore(sessionDateTime.minus(expiresBefore));
+        }
+    }
+
+    @Autowired
+    private TutoringSessionRepository sessionRepository;
+
+    @Autowired
+    private ReminderDeliveryRepository deliveryRepository;
+
+    @Autowired
+    private ReminderService reminderService;
+
+    @Autowired
+    private SchedulerLeaseService leaseService;
+
+    @Autowired
+    private BatchJobRunner batchJobRunner;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${reminders.horizon-hours:48}")
+    private long horizonHours;
+
+    @Value("${reminders.review.catch-up-hours:24}")
+    private long reviewCatchUpHours;
+
+    @Value("${reminders.ledger.retention-days:30}")
+    private long ledgerRetentionDays;
+
+    private final DelayQueue<ReminderTask> queue = new DelayQueue<>();
+
+    // Start time each scheduled session was queued for; tasks for any other time are stale
+    private final Map<Long, LocalDateTime> scheduled = new ConcurrentHashMap<>();
+
+    private volatile LocalDateTime loadedUntil;
+    private Thread worker;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("whatsapp.reminders.queued", queue, DelayQueue::size)
+                .description("Session reminders waiting for their due time")
+                .register(meterRegistry);
+
+        loadedUntil = LocalDateTime.now();
+        refill();
+        requestPostSessionReviews();
+
+        worker = new Thread(this::run, "reminder-scheduler");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queue reminders for a confirmed session once the current transaction
+     * commits. Sessions beyond the horizon are left to the refill.
+     */
+    public void scheduleAfterCommit(TutoringSession session) {
+        Long sessionId = session.getId();
+        LocalDateTime sessionDateTime = session.getSessionDateTime();
+        afterCommit(() -> schedule(sessionId, sessionDateTime));
+    }
+
+    /**
+     * Drop a session's reminders once the current transaction commits
+     */
+    public void cancelAfterCommit(Long sessionId) {
+        afterCommit(() -> cancel(sessionId));
+    }
+
+    /**
+     * Load confirmed sessions that have entered the horizon since the last load
+     */
+    @Scheduled(fixedDelayString = "${reminders.refill-interval-ms:900000}",
+            initialDelayString = "${reminders.refill-interval-ms:900000}")
+    public synchronized void refill() {
+        LocalDateTime from = loadedUntil;
+        LocalDateTime until = LocalDateTime.now().plusHours(horizonHours);
+
+        List<TutoringSession> sessions = sessionRepository.findSessionsInDateRange(from, until,
+                List.of(TutoringSession.SessionStatus.CONFIRMED));
+        for (TutoringSession session : sessions) {
+            schedule(session.getId(), session.getSessionDateTime());
+        }
+        loadedUntil = until;
+
+        logger.info("Loaded {} sessions into the reminder queue ({} reminders queued)",
+                sessions.size(), queue.size());
+    }
+
+    /**
+     * Ask students to rate sessions that started over an hour ago and have
+     * been completed, unless already asked. Also run at startup, so requests
+     * missed while no instance was running go out late rather than never.
+     * Runs every hour
+     */
+    @Scheduled(cron = "0 0 * * * *") // Every hour
+    public void requestPostSessionReviews() {
+        if (!leaseService.tryAcquire("review-requests", Duration.ofMinutes(30))) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<TutoringSession> sessions = sessionRepository.findSessionsWithoutDelivery(
+                now.minusHours(reviewCatchUpHours), now.minusHours(1),
+                TutoringSession.SessionStatus.COMPLETED, ReminderDelivery.ReminderKind.REVIEW_REQUEST);
+
+        batchJobRunner.run("review-requests", sessions, session -> {
+            try {
+                reminderService.sendReviewRequest(session);
+                return true;
+            } catch (DataIntegrityViolationException e) {
+                logger.debug("Review request for session {} already sent", session.getId());
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Remove ledger entries for sessions long past
+     * Runs daily at 4:10 AM
+     */
+    @Scheduled(cron = "0 10 4 * * *")
+    public void purgeDeliveries() {
+        if (!leaseService.tryAcquire("reminder-ledger-purge", Duration.ofHours(1))) {
+            return;
+        }
+        int removed = deliveryRepository.deleteSentBefore(LocalDateTime.now().minusDays(ledgerRetentionDays));
+        logger.info("Purged {} reminder deliveries older than {} days", removed, ledgerRetentionDays);
+    }
+
+    void schedule(Long sessionId, LocalDateTime sessionDateTime) {
+        LocalDateTime now = LocalDateTime.now();
+        if (sessionDateTime.isAfter(now.plusHours(horizonHours))) {
+            return;
+        }
+
+        LocalDateTime previous = scheduled.put(sessionId, sessionDateTime);
+        if (sessionDateTime.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            queue.removeIf(task -> task.sessionId.equals(sessionId));
+        }
+
+        boolean queued = false;
+        for (Reminder reminder : Reminder.values()) {
+            if (!reminder.expired(sessionDateTime, now)) {
+                queue.add(new ReminderTask(sessionId, sessionDateTime, reminder));
+                queued = true;
+            }
+        }
+        if (!queued) {
+            scheduled.remove(sessionId, sessionDateTime);
+        }
+    }
+
+    void cancel(Long sessionId) {
+        if (scheduled.remove(sessionId) != null) {
+            queue.removeIf(task -> task.sessionId.equals(sessionId));
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                // Everything already due goes out as one batch, e.g. all sessions starting on the hour
+                List<ReminderTask> due = new ArrayList<>();
+                due.add(queue.take());
+                queue.drainTo(due);
+                batchJobRunner.run("session-reminders", due, this::fire);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.error("Error sending reminder: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Send one reminder; returns false if it was stale or already sent
+     */
+    private boolean fire(ReminderTask task) {
+        if (!task.sessionDateTime.equals(scheduled.get(task.sessionId))) {
+            return false;
+        }
+        if (task.reminder == Reminder.HOUR_BEFORE) {
+            scheduled.remove(task.sessionId, task.sessionDateTime);
+        }
+        if (task.reminder.expired(task.sessionDateTime, LocalDateTime.now())) {
+            return false;
+        }
+
+        TutoringSession session = sessionRepository.findById(task.sessionId).orElse(null);
+        if (session == null
+                || session.getStatus() != TutoringSession.SessionStatus.CONFIRMED
+                || !session.getSessionDateTime().equals(task.sessionDateTime)) {
+            logger.debug("Dropping {} reminder for session {}: no longer current", task.reminder, task.sessionId);
+            return false;
+        }
+
+        // Cheap check for the common case; the ledger insert is what guarantees a single send
+        if (deliveryRepository.existsBySessionIdAndKind(task.sessionId, task.reminder.getKind())) {
+            return false;
+        }
+        try {
+            reminderService.sendSessionReminder(session, task.reminder);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("{} reminder for session {} already sent", task.reminder, task.sessionId);
+            return false;
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private static final class ReminderTask implements Delayed {
+
+        private final Long sessionId;
+        private final LocalDateTime sessionDateTime;
+        private final Reminder reminder;
+        private final long dueAtMillis;
+
+        private ReminderTask(Long sessionId, LocalDateTime sessionDateTime, Reminder reminder) {
+            this.sessionId = sessionId;
+            this.sessionDateTime = sessionDateTime;
+            this.reminder = reminder;
+            this.dueAtMillis = reminder.dueAt(sessionDateTime)
+                    .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAtMillis, ((ReminderTask) other).dueAtMillis);
+        }
+
+        @Override
+        public String toString() {
+            return reminder + " reminder for session " + sessionId;
+        }
+    }
+}
@@ -1,82 +1,82 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.PaymentReminder;
 import com.example.demo.entity.Payment;
+import com.example.demo.entity.ReminderDelivery;
 import com.example.demo.entity.TutoringSession;
 import com.example.demo.repository.PaymentRepository;
-import com.example.demo.repository.TutoringSessionRepository;
+import com.example.demo.repository.ReminderDeliveryRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public class ReminderService {
 
     private static final Logger logger = LoggerFactory.getLogger(ReminderService.class);
-    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter
-            .ofPattern("MMM dd, yyyy 'at' hh:mm a");
 
     @Autowired
-    private TutoringSessionRepository sessionRepository;
+    private PaymentRepository paymentRepository;
 
     @Autowired
-    private PaymentRepository paymentRepository;
+    private ReminderDeliveryRepository deliveryRepository;
 
     @Autowired
-    private MetaWhatsAppService metaWhatsAppService;
+    private SchedulerLeaseService leaseService;
 
-    /**
-     * Send 24-hour reminders for upcoming sessions
-     * Runs every hour
-     */
-    @Scheduled(cron = "0 0 * * * *") // Every hour
-    public void send24HourReminders() {
-        logger.info("Running 24-hour reminder check");
+    @Autowired
+    private BatchJobRunner batchJobRunner;
 
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime in24Hours = now.plusHours(24);
-        LocalDateTime in25Hours = now.plusHours(25); // 1-hour window
+    @Autowired
+    private MonthlyEarningsSummaryJob monthlyEarningsSummaryJob;
 
-        List<TutoringSession> sessions = sessionRepository.findSessionsInDateRange(
-                in24Hours, in25Hours,
-                Arrays.asList(TutoringSession.SessionStatus.CONFIRMED));
+    @Autowired
+    private MetaWhatsAppService metaWhatsAppService;
 
-        for (TutoringSession session : sessions) {
-            send24HourReminderToStudent(session);
-            send24HourReminderToTutor(session);
-        }
+    @Autowired
+    private MessageTemplates messageTemplates;
 
-        logger.info("Sent 24-hour reminders for {} sessions", sessions.size());
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ReminderService(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     /**
-     * Send 1-hour reminders for upcoming sessions
-     * Runs every 15 minutes
+     * Remind the student and tutor of a confirmed session.
+     * Called by ReminderScheduler when the reminder is due. The ledger entry
+     * commits with the queued messages; if the reminder was already recorded
+     * this throws DataIntegrityViolationException and nothing is sent.
      */
-    @Scheduled(cron = "0 */15 * * * *") // Every 15 minutes
-    public void send1HourReminders() {
-        logger.info("Running 1-hour reminder check");
-
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime in1Hour = now.plusHours(1);
-        LocalDateTime in1Hour15Min = now.plusHours(1).plusMinutes(15);
-
-        List<TutoringSession> sessions = sessionRepository.findSessionsInDateRange(
-                in1Hour, in1Hour15Min,
-                Arrays.asList(TutoringSession.SessionStatus.CONFIRMED));
-
-        for (TutoringSession session : sessions) {
-            send1HourReminderToStudent(session);
-            send1HourReminderToTutor(session);
+    @Transactional
+    public void sendSessionReminder(TutoringSession session, ReminderScheduler.Reminder reminder) {
+        recordDelivery(session, reminder.getKind());
+
+        switch (reminder) {
+            case DAY_BEFORE:
+                send24HourReminderToStudent(session);
+                send24HourReminderToTutor(session);
+                break;
+            case HOUR_BEFORE:
+                send1HourReminderToStudent(session);
+                send1HourReminderToTutor(session);
+                break;
         }
 
-        logger.info("Sent 1-hour reminders for {} sessions", sessions.size());
+        logger.info("Sent {} reminder for session {}", reminder, session.getId());
     }
 
     /**
@@ -85,183 +85,148 @@ public class ReminderService {
      */
     @Scheduled(cron = "0 0 9,18 * * *") // At 9 AM and 6 PM
     public void sendPaymentReminders() {
+        if (!leaseService.tryAcquire("payment-reminders", Duration.ofHours(1))) {
+            return;
+        }
         logger.info("Running payment reminder check");
 
-        List<Payment> unpaidPayments = paymentRepository.findByStatus(Payment.PaymentStatus.PENDING);
-
-        for (Payment payment : unpaidPayments) {
-            // Only send reminder if session is more than 2 hours away
-            if (payment.getSession().getSessionDateTime().isAfter(LocalDateTime.now().plusHours(2))) {
-                sendPaymentReminder(payment);
+        // Only remind if the session is more than 2 hours away
+        LocalDateTime after = LocalDateTime.now().plusHours(2);
+
+        // Read-only transaction to hold the cursor open; each reminder is queued in its own
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<PaymentReminder> reminders = paymentRepository.streamPaymentReminders(
+                    Payment.PaymentStatus.PENDING, TutoringSession.SessionStatus.CONFIRMED, after)) {
+                batchJobRunner.run("payment-reminders", reminders, reminder -> {
+                    sendPaymentReminder(reminder);
+                    return true;
+                });
             }
-        }
-
-        logger.info("Sent payment reminders for {} unpaid sessions", unpaidPayments.size());
+        });
     }
 
     /**
-     * Request post-session reviews
-     * Runs every hour
+     * Send last month's earnings summary to tutors
+     * Runs on the 1st of every month at 9 AM
      */
-    @Scheduled(cron = "0 0 * * * *") // Every hour
-    public void requestPostSessionReviews() {
-        logger.info("Running post-session review check");
-
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime twoHoursAgo = now.minusHours(2);
-        LocalDateTime oneHourAgo = now.minusHours(1);
-
-        // Find sessions that completed in the last hour
-        List<TutoringSession> completedSessions = sessionRepository.findSessionsInDateRange(
-                twoHoursAgo, oneHourAgo,
-                Arrays.asList(TutoringSession.SessionStatus.COMPLETED));
-
-        for (TutoringSession session : completedSessions) {
-            sendReviewRequest(session);
+    @Scheduled(cron = "0 0 9 1 * *") // 9 AM on 1st of month
+    public void sendMonthlyEarningsSummaries() {
+        if (!leaseService.tryAcquire("monthly-earnings-summaries", Duration.ofHours(1))) {
+            return;
         }
-
-        logger.info("Sent review requests for {} completed sessions", completedSessions.size());
+        logger.info("Sending monthly earnings summaries");
+        monthlyEarningsSummaryJob.run(YearMonth.now().minusMonths(1));
     }
 
     /**
-     * Send monthly earnings summary to tutors
-     * Runs on the 1st of every month at 9 AM
+     * Finish earnings summary runs interrupted by a restart
+     * Runs every hour
      */
-    @Scheduled(cron = "0 0 9 1 * *") // 9 AM on 1st of month
-    public void sendMonthlyEarningsSummaries() {
-        logger.info("Sending monthly earnings summaries");
-        // This will be called by PaymentService for each tutor
+    @Scheduled(cron = "0 20 * * * *") // Every hour at twenty past
+    public void resumeMonthlyEarningsSummaries() {
+        if (!leaseService.tryAcquire("monthly-earnings-summaries", Duration.ofHours(1))) {
+            return;
+        }
+        monthlyEarningsSummaryJob.resumeUnfinished();
     }
 
     // Reminder methods
     private void send24HourReminderToStudent(TutoringSession session) {
-        String message = String.format(
-                "⏰ *Session Reminder - 24 Hours*\n\n" +
-                        "Your tutoring session is tomorrow!\n\n" +
-                        "Tutor: %s\n" +
-                        "Subject: %s\n" +
-                        "Date: %s\n" +
-                        "Duration: %d minutes\n" +
-                        "Type: %s\n\n" +
-                        "%s\n\n" +
-                        "_Type CANCEL %d if you need to cancel_",
+        String message = messageTemplates.render("reminder.24h.student",
                 session.getTutor().getFullName(),
                 session.getSubject().getName(),
-                session.getSessionDateTime().format(DATE_TIME_FORMATTER),
+                session.getSessionDateTime(),
                 session.getDurationMinutes(),
                 session.getType().name(),
-                session.getType() == TutoringSession.SessionType.ONLINE
-                        ? "Meeting Link: " + session.getMeetingLink()
-                        : "Location: " + session.getLocation(),
+                sessionPlace(session, "session.place."),
                 session.getId());
 
         metaWhatsAppService.sendTextMessage(session.getStudent().getPhoneNumber(), message);
     }
 
     private void send24HourReminderToTutor(TutoringSession session) {
-        String message = String.format(
-                "⏰ *Session Reminder - 24 Hours*\n\n" +
-                        "You have a tutoring session tomorrow!\n\n" +
-                        "Student: %s\n" +
-                        "Subject: %s\n" +
-                        "Date: %s\n" +
-                        "Duration: %d minutes\n" +
-                        "Type: %s\n\n" +
-                        "%s\n\n" +
-                        "_Prepare any materials you want to share_",
+        String message = messageTemplates.render("reminder.24h.tutor",
                 session.getStudent().getFullName(),
                 session.getSubject().getName(),
-                session.getSessionDateTime().format(DATE_TIME_FORMATTER),
+                session.getSessionDateTime(),
                 session.getDurationMinutes(),
                 session.getType().name(),
-                session.getType() == TutoringSession.SessionType.ONLINE
-                        ? "Meeting Link: " + session.getMeetingLink()
-                        : "Location: " + session.getLocation());
+                sessionPlace(session, "session.place."));
 
         metaWhatsAppService.sendTextMessage(session.getTutor().getPhoneNumber(), message);
     }
 
     private void send1HourReminderToStudent(TutoringSession session) {
-        String message = String.format(
-                "🔔 *Session Starting Soon - 1 Hour*\n\n" +
-                        "Your session starts in 1 hour!\n\n" +
-                        "Tutor: %s\n" +
-                        "Subject: %s\n" +
-                        "Time: %s\n\n" +
-                        "%s\n\n" +
-                        "_Get ready and prepare any questions you have_",
+        String message = messageTemplates.render("reminder.1h.student",
                 session.getTutor().getFullName(),
                 session.getSubject().getName(),
-                session.getSessionDateTime().format(DATE_TIME_FORMATTER),
-                session.getType() == TutoringSession.SessionType.ONLINE
-                        ? "🔗 Join now: " + session.getMeetingLink()
-                        : "📍 Location: " + session.getLocation());
+                session.getSessionDateTime(),
+                sessionPlace(session, "reminder.place."));
 
         metaWhatsAppService.sendTextMessage(session.getStudent().getPhoneNumber(), message);
     }
 
     private void send1HourReminderToTutor(TutoringSession session) {
-        String message = String.format(
-                "🔔 *Session Starting Soon - 1 Hour*\n\n" +
-                        "Your session starts in 1 hour!\n\n" +
-                        "Student: %s\n" +
-                        "Subject: %s\n" +
-                        "Time: %s\n\n" +
-                        "%s\n\n" +
-                        "_Make sure you're ready and have your materials prepared_",
+        String message = messageTemplates.render("reminder.1h.tutor",
                 session.getStudent().getFullName(),
                 session.getSubject().getName(),
-                session.getSessionDateTime().format(DATE_TIME_FORMATTER),
-                session.getType() == TutoringSession.SessionType.ONLINE
-                        ? "🔗 Join now: " + session.getMeetingLink()
-                        : "📍 Location: " + session.getLocation());
+                session.getSessionDateTime(),
+                sessionPlace(session, "reminder.place."));
 
         metaWhatsAppService.sendTextMessage(session.getTutor().getPhoneNumber(), message);
     }
 
-    private void sendPaymentReminder(Payment payment) {
-        TutoringSession session = payment.getSession();
-
-        String message = String.format(
-                "⚠️ *Payment Reminder*\n\n" +
-                        "Your session is upcoming but payment is still pending.\n\n" +
-                        "Amount Due: R%.2f\n" +
-                        "Session: %s with %s\n" +
-                        "Date: %s\n\n" +
-                        "Please complete payment to confirm your booking.\n\n" +
-                        "Reference: %s",
-                payment.getTotalAmount(),
-                session.getSubject().getName(),
-                session.getTutor().getFullName(),
-                session.getSessionDateTime().format(DATE_TIME_FORMATTER),
-                payment.getPaymentReference());
+    private void sendPaymentReminder(PaymentReminder reminder) {
+        String message = messageTemplates.render("reminder.payment",
+                reminder.totalAmount(),
+                reminder.subjectName(),
+                reminder.tutorName(),
+                reminder.sessionDateTime(),
+                reminder.paymentReference());
 
-        metaWhatsAppService.sendMessageWithLink(payment.getStudent().getPhoneNumber(),
+        metaWhatsAppService.sendMessageWithLink(reminder.studentPhoneNumber(),
                 message,
-                payment.getPaymentLink(),
-                "Pay Now");
+                reminder.paymentLink(),
+                messageTemplates.render("payment.link.button"));
     }
 
-    private void sendReviewRequest(TutoringSession session) {
-        String message = String.format(
-                "⭐ *How Was Your Session?*\n\n" +
-                        "Please rate your session with %s\n\n" +
-                        "Subject: %s\n" +
-                        "Date: %s\n\n" +
-                        "Rate from 1-5 stars:",
+    /**
+     * Ask the student to rate a completed session, at most once per session.
+     * Throws DataIntegrityViolationException if the request was already sent.
+     */
+    @Transactional
+    public void sendReviewRequest(TutoringSession session) {
+        recordDelivery(session, ReminderDelivery.ReminderKind.REVIEW_REQUEST);
+
+        String message = messageTemplates.render("reminder.review",
                 session.getTutor().getFullName(),
                 session.getSubject().getName(),
-                session.getSessionDateTime().format(DATE_TIME_FORMATTER));
+                session.getSessionDateTime());
+
+        // One list message covers all five ratings; reply ids carry the session,
+        // so a tap rates it without a RATE command first
+        List<MetaWhatsAppService.ListOption> ratingRows = new ArrayList<>();
+        for (int stars = 5; stars >= 1; stars--) {
+            ratingRows.add(new MetaWhatsAppService.ListOption(
+                    ConversationCommands.replyId(ConversationCommands.REPLY_REVIEW, session.getId() + ":" + stars),
+                    messageTemplates.render("reminder.review.stars-" + stars)));
+        }
 
-        List<String> ratingButtons = Arrays.asList(
-                "⭐ 1 Star",
-                "⭐⭐ 2 Stars",
-                "⭐⭐⭐ 3 Stars");
+        metaWhatsAppService.sendListMessage(session.getStudent().getPhoneNumber(),
+                messageTemplates.render("reminder.review.title"), message, ratingRows);
+    }
 
-        metaWhatsAppService.sendMessageWithButtons(session.getStudent().getPhoneNumber(), message, ratingButtons);
+    private void recordDelivery(TutoringSession session, ReminderDelivery.ReminderKind kind) {
+        // Flushed now so a duplicate fails before any message is queued
+        deliveryRepository.saveAndFlush(new ReminderDelivery(session.getId(), kind));
+    }
 
-        // Send follow-up with remaining options
-        metaWhatsAppService.sendTextMessage(session.getStudent().getPhoneNumber(),
-                "4️⃣ ⭐⭐⭐⭐ 4 Stars\n5️⃣ ⭐⭐⭐⭐⭐ 5 Stars\n\n_Reply with number or star count_");
+    /**
+     * Meeting link or location line, from the "online" or "in-person" template under prefix
+     */
+    private String sessionPlace(TutoringSession session, String prefix) {
+        return session.getType() == TutoringSession.SessionType.ONLINE
+                ? messageTemplates.render(prefix + "online", session.getMeetingLink())
+                : messageTemplates.render(prefix + "in-person", session.getLocation());
     }
 }
@@ -0,0 +1,78 @@
+package com.example.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.*;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Blocking RestTemplate transport run on a fixed pool of sender threads.
+ * HttpURLConnection keeps connections alive and reuses up to
+ * meta.whatsapp.http.max-connections of them per host.
+ * Use this when HTTP/2 to graph.facebook.com is not available.
+ */
+@Component
+@ConditionalOnProperty(name = "meta.whatsapp.transport", havingValue = "blocking")
+public class RestTemplateTransport implements MetaApiTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestTemplateTransport.class);
+
+    private final RestTemplate restTemplate;
+    private final ExecutorService executor;
+
+    public RestTemplateTransport(
+            @Value("${meta.whatsapp.http.connect-timeout-ms:3000}") int connectTimeoutMs,
+            @Value("${meta.whatsapp.http.read-timeout-ms:10000}") int readTimeoutMs,
+            @Value("${meta.whatsapp.http.max-connections:20}") int maxConnections) {
+
+        // Size of HttpURLConnection's per-host keep-alive cache
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections", String.valueOf(maxConnections));
+        }
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        this.restTemplate = new RestTemplate(requestFactory);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(maxConnections,
+                runnable -> new Thread(runnable, "meta-sender-" + threadCount.incrementAndGet()));
+
+        logger.info("Meta API transport: pooled RestTemplate (connect {}ms, read {}ms, {} connections)",
+                connectTimeoutMs, readTimeoutMs, maxConnections);
+    }
+
+    @Override
+    public CompletableFuture<String> post(String url, String accessToken, String jsonBody) {
+        return CompletableFuture.supplyAsync(() -> {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setBearerAuth(accessToken);
+
+            try {
+                ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST,
+                        new HttpEntity<>(jsonBody, headers), String.class);
+                return response.getBody();
+            } catch (HttpStatusCodeException e) {
+                throw new MetaApiException(e.getRawStatusCode(), e.getResponseBodyAsString());
+            }
+        }, executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
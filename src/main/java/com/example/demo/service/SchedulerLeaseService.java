@@ -0,0 +1,71 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.SchedulerLease;
+import com.example.demo.repository.SchedulerLeaseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Database leases for scheduled jobs that must run on one instance only.
+ * A job asks for its lease when it fires and skips the run if another
+ * instance holds it. Leases are not released: they lapse after the given
+ * duration, which should be shorter than the job's period and longer than
+ * the clock skew between instances.
+ */
+@Service
+public class SchedulerLeaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerLeaseService.class);
+
+    @Autowired
+    private SchedulerLeaseRepository leaseRepository;
+
+    // Unique per process, so a restarted instance does not inherit its predecessor's leases
+    private final String owner = hostName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+
+    /**
+     * Claim the named job for this instance until now + duration.
+     * Returns false if another instance holds an unexpired lease.
+     */
+    public boolean tryAcquire(String jobName, Duration duration) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(duration);
+
+        if (leaseRepository.claim(jobName, owner, now, until) == 1) {
+            return true;
+        }
+
+        try {
+            leaseRepository.saveAndFlush(new SchedulerLease(jobName, owner, until));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            logger.info("Skipping {}: lease held by another instance", jobName);
+            return false;
+        }
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    private static String hostName() {
+        String host = System.getenv("HOSTNAME");
+        if (host != null && !host.isEmpty()) {
+            return host;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
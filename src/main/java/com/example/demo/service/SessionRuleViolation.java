@@ -0,0 +1,14 @@
+package com.example.demo.service;
+
+/**
+ * A booking or payment request that breaks a session rule, e.g. accepting a
+ * session that is not pending. Thrown only before anything is written, so it
+ * does not roll back the caller's transaction and the conversation can still
+ * reply to the user.
+ */
+public class SessionRuleViolation extends RuntimeException {
+
+    public SessionRuleViolation(String message) {
+        super(message);
+    }
+}
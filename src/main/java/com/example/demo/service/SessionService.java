@@ -5,25 +5,40 @@ import com.example.demo.repository.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Session lifecycle operations.
+ * Rule violations are reported as SessionRuleViolation before anything is
+ * written, and do not roll back the caller's transaction, so the conversation
+ * can still reply to the user and have that reply delivered. Any other failure
+ * rolls back.
+ */
 @Service
 public class SessionService {
 
     private static final Logger logger = LoggerFactory.getLogger(SessionService.class);
-    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter
-            .ofPattern("MMM dd, yyyy 'at' hh:mm a");
+
+    // Open bounds for the first keyset page; kept within what every database can store
+    private static final LocalDateTime KEYSET_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime KEYSET_END = LocalDateTime.of(9999, 12, 31, 23, 59);
 
     @Autowired
     private TutoringSessionRepository sessionRepository;
 
+    @Autowired
+    private MessageTemplates messageTemplates;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
     @Autowired
     private TutorSubjectRepository tutorSubjectRepository;
 
@@ -39,17 +54,20 @@ public class SessionService {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private ReminderScheduler reminderScheduler;
+
     /**
      * Create a new tutoring session booking
      */
-    @Transactional
+    @Transactional(noRollbackFor = SessionRuleViolation.class)
     public TutoringSession createSessionBooking(User student, User tutor, Subject subject,
             LocalDateTime sessionDateTime, Integer durationMinutes,
             TutoringSession.SessionType type, String location) {
 
         // Get tutor's rate for this subject
         TutorSubject tutorSubject = tutorSubjectRepository.findByTutorAndSubject(tutor, subject)
-                .orElseThrow(() -> new RuntimeException("Tutor does not teach this subject"));
+                .orElseThrow(() -> new SessionRuleViolation("Tutor does not teach this subject"));
 
         // Calculate price based on hourly rate and duration
         BigDecimal price = tutorSubject.getHourlyRate()
@@ -82,27 +100,34 @@ public class SessionService {
     /**
      * Tutor accepts a session request
      */
-    @Transactional
+    @Transactional(noRollbackFor = SessionRuleViolation.class)
     public void acceptSession(Long sessionId, User tutor) {
         TutoringSession session = sessionRepository.findById(sessionId)
-                .orElseThrow(() -> new RuntimeException("Session not found"));
+                .orElseThrow(() -> new SessionRuleViolation("Session not found"));
 
         if (!session.getTutor().getId().equals(tutor.getId())) {
-            throw new RuntimeException("You are not the tutor for this session");
+            throw new SessionRuleViolation("You are not the tutor for this session");
         }
 
         if (session.getStatus() != TutoringSession.SessionStatus.PENDING) {
-            throw new RuntimeException("Session is not pending");
+            throw new SessionRuleViolation("Session is not pending");
         }
 
         session.setStatus(TutoringSession.SessionStatus.CONFIRMED);
         sessionRepository.save(session);
+        reminderScheduler.scheduleAfterCommit(session);
 
         // Notify student
         notifyStudentOfConfirmedSession(session);
 
-        // Create payment record
-        paymentService.createPayment(session);
+        // Create payment record; the session is already confirmed by now, so a
+        // rule violation here must undo the whole acceptance
+        try {
+            paymentService.createPayment(session);
+        } catch (SessionRuleViolation e) {
+            throw new IllegalStateException("Could not create payment for session " + sessionId
+                    + ": " + e.getMessage(), e);
+        }
 
         logger.info("Tutor {} accepted session {}", tutor.getFullName(), sessionId);
     }
@@ -110,22 +135,23 @@ public class SessionService {
     /**
      * Tutor declines a session request
      */
-    @Transactional
+    @Transactional(noRollbackFor = SessionRuleViolation.class)
     public void declineSession(Long sessionId, User tutor, String reason) {
         TutoringSession session = sessionRepository.findById(sessionId)
-                .orElseThrow(() -> new RuntimeException("Session not found"));
+                .orElseThrow(() -> new SessionRuleViolation("Session not found"));
 
         if (!session.getTutor().getId().equals(tutor.getId())) {
-            throw new RuntimeException("You are not the tutor for this session");
+            throw new SessionRuleViolation("You are not the tutor for this session");
         }
 
         if (session.getStatus() != TutoringSession.SessionStatus.PENDING) {
-            throw new RuntimeException("Session is not pending");
+            throw new SessionRuleViolation("Session is not pending");
         }
 
         session.setStatus(TutoringSession.SessionStatus.CANCELLED);
         session.setCancelledAt(LocalDateTime.now());
-        session.setCancellationReason(reason != null ? reason : "Declined by tutor");
+        session.setCancellationReason(reason != null ? reason
+                : messageTemplates.render("session.declined.default-reason"));
         sessionRepository.save(session);
 
         // Notify student
@@ -137,27 +163,28 @@ public class SessionService {
     /**
      * Cancel a session
      */
-    @Transactional
+    @Transactional(noRollbackFor = SessionRuleViolation.class)
     public void cancelSession(Long sessionId, User user, String reason) {
         TutoringSession session = sessionRepository.findById(sessionId)
-                .orElseThrow(() -> new RuntimeException("Session not found"));
+                .orElseThrow(() -> new SessionRuleViolation("Session not found"));
 
         boolean isStudent = session.getStudent().getId().equals(user.getId());
         boolean isTutor = session.getTutor().getId().equals(user.getId());
 
         if (!isStudent && !isTutor) {
-            throw new RuntimeException("You are not part of this session");
+            throw new SessionRuleViolation("You are not part of this session");
         }
 
         if (session.getStatus() == TutoringSession.SessionStatus.CANCELLED ||
                 session.getStatus() == TutoringSession.SessionStatus.COMPLETED) {
-            throw new RuntimeException("Session cannot be cancelled");
+            throw new SessionRuleViolation("Session cannot be cancelled");
         }
 
         session.setStatus(TutoringSession.SessionStatus.CANCELLED);
         session.setCancelledAt(LocalDateTime.now());
         session.setCancellationReason(reason);
         sessionRepository.save(session);
+        reminderScheduler.cancelAfterCommit(sessionId);
 
         // Notify the other party
         if (isStudent) {
@@ -175,18 +202,19 @@ public class SessionService {
     /**
      * Mark session as completed
      */
-    @Transactional
+    @Transactional(noRollbackFor = SessionRuleViolation.class)
     public void completeSession(Long sessionId, User tutor) {
         TutoringSession session = sessionRepository.findById(sessionId)
-                .orElseThrow(() -> new RuntimeException("Session not found"));
+                .orElseThrow(() -> new SessionRuleViolation("Session not found"));
 
         if (!session.getTutor().getId().equals(tutor.getId())) {
-            throw new RuntimeException("You are not the tutor for this session");
+            throw new SessionRuleViolation("You are not the tutor for this session");
         }
 
         session.setStatus(TutoringSession.SessionStatus.COMPLETED);
         session.setCompletedAt(LocalDateTime.now());
         sessionRepository.save(session);
+        reminderScheduler.cancelAfterCommit(sessionId);
 
         // Request review from student
         requestStudentReview(session);
@@ -195,53 +223,62 @@ public class SessionService {
     }
 
     /**
-     * Get upcoming sessions for a user
+     * Get a page of upcoming confirmed sessions for a user, soonest first.
+     * Pass null for the first page, or the date and id of the last session
+     * shown for the next one.
      */
-    public List<TutoringSession> getUpcomingSessions(User user) {
-        LocalDateTime now = LocalDateTime.now();
+    public List<TutoringSession> getUpcomingSessions(User user, LocalDateTime afterTime, Long afterId, int limit) {
+        if (afterTime == null) {
+            afterTime = LocalDateTime.now();
+            afterId = Long.MAX_VALUE;
+        }
 
         if (user.getRole() == User.UserRole.TUTOR) {
-            return sessionRepository.findUpcomingSessionsForTutor(user,
-                    TutoringSession.SessionStatus.CONFIRMED, now);
+            return sessionRepository.findTutorSessionsAfter(user,
+                    TutoringSession.SessionStatus.CONFIRMED, afterTime, afterId, PageRequest.of(0, limit));
         } else {
-            return sessionRepository.findUpcomingSessionsForStudent(user,
-                    TutoringSession.SessionStatus.CONFIRMED, now);
+            return sessionRepository.findStudentSessionsAfter(user,
+                    TutoringSession.SessionStatus.CONFIRMED, afterTime, afterId, PageRequest.of(0, limit));
         }
     }
 
     /**
-     * Get pending sessions for tutor (waiting for acceptance)
+     * Get a page of pending sessions for tutor (waiting for acceptance), by session date.
+     * Pass null for the first page, or the date and id of the last session shown.
      */
-    public List<TutoringSession> getPendingSessions(User tutor) {
-        return sessionRepository.findByTutorAndStatus(tutor, TutoringSession.SessionStatus.PENDING);
+    public List<TutoringSession> getPendingSessions(User tutor, LocalDateTime afterTime, Long afterId, int limit) {
+        if (afterTime == null) {
+            afterTime = KEYSET_START;
+            afterId = 0L;
+        }
+
+        return sessionRepository.findTutorSessionsAfter(tutor,
+                TutoringSession.SessionStatus.PENDING, afterTime, afterId, PageRequest.of(0, limit));
     }
 
     /**
-     * Get all sessions for a user
+     * Get a page of a user's session history, most recent first.
+     * Pass null for the first page, or the date and id of the last session shown.
      */
-    public List<TutoringSession> getAllSessions(User user) {
+    public List<TutoringSession> getAllSessions(User user, LocalDateTime beforeTime, Long beforeId, int limit) {
+        if (beforeTime == null) {
+            beforeTime = KEYSET_END;
+            beforeId = Long.MAX_VALUE;
+        }
+
         if (user.getRole() == User.UserRole.TUTOR) {
-            return sessionRepository.findByTutorOrderBySessionDateTimeDesc(user);
+            return sessionRepository.findTutorHistoryBefore(user, beforeTime, beforeId, PageRequest.of(0, limit));
         } else {
-            return sessionRepository.findByStudentOrderBySessionDateTimeDesc(user);
+            return sessionRepository.findStudentHistoryBefore(user, beforeTime, beforeId, PageRequest.of(0, limit));
         }
     }
 
     // Notification methods
     private void notifyTutorOfNewBooking(TutoringSession session) {
-        String message = String.format(
-                "🔔 *New Session Request!*\n\n" +
-                        "Student: %s\n" +
-                        "Subject: %s\n" +
-                        "Date: %s\n" +
-                        "Duration: %d minutes\n" +
-                        "Type: %s\n" +
-                        "Price: R%.2f\n\n" +
-                        "Session ID: %d\n\n" +
-                        "_Type SESSIONS to manage your bookings_",
+        String message = messageTemplates.render("session.request.tutor",
                 session.getStudent().getFullName(),
                 session.getSubject().getName(),
-                session.getSessionDateTime().format(DATE_TIME_FORMATTER),
+                session.getSessionDateTime(),
                 session.getDurationMinutes(),
                 session.getType().name(),
                 session.getPrice(),
@@ -251,95 +288,67 @@ public class SessionService {
     }
 
     private void notifyStudentOfConfirmedSession(TutoringSession session) {
-        String message = String.format(
-                "✅ *Session Confirmed!*\n\n" +
-                        "Your session has been confirmed by %s\n\n" +
-                        "Subject: %s\n" +
-                        "Date: %s\n" +
-                        "Duration: %d minutes\n" +
-                        "Type: %s\n" +
-                        "Price: R%.2f\n\n" +
-                        "%s\n\n" +
-                        "_You will receive a reminder 24 hours before the session_",
+        String message = messageTemplates.render("session.confirmed.student",
                 session.getTutor().getFullName(),
                 session.getSubject().getName(),
-                session.getSessionDateTime().format(DATE_TIME_FORMATTER),
+                session.getSessionDateTime(),
                 session.getDurationMinutes(),
                 session.getType().name(),
                 session.getPrice(),
                 session.getType() == TutoringSession.SessionType.ONLINE
-                        ? "Meeting Link: " + session.getMeetingLink()
-                        : "Location: " + session.getLocation());
+                        ? messageTemplates.render("session.place.online", session.getMeetingLink())
+                        : messageTemplates.render("session.place.in-person", session.getLocation()));
 
         metaWhatsAppService.sendTextMessage(session.getStudent().getPhoneNumber(), message);
     }
 
     private void notifyStudentOfDeclinedSession(TutoringSession session, String reason) {
-        String message = String.format(
-                "❌ *Session Declined*\n\n" +
-                        "Unfortunately, %s is not available for the requested session.\n\n" +
-                        "Subject: %s\n" +
-                        "Date: %s\n\n" +
-                        "%s\n\n" +
-                        "_Type BOOK to find another tutor_",
+        String message = messageTemplates.render("session.declined.student",
                 session.getTutor().getFullName(),
                 session.getSubject().getName(),
-                session.getSessionDateTime().format(DATE_TIME_FORMATTER),
-                reason != null ? "Reason: " + reason : "");
+                session.getSessionDateTime(),
+                reasonLine(reason));
 
         metaWhatsAppService.sendTextMessage(session.getStudent().getPhoneNumber(), message);
     }
 
     private void notifyTutorOfCancellation(TutoringSession session, String reason) {
-        String message = String.format(
-                "❌ *Session Cancelled*\n\n" +
-                        "%s has cancelled the session.\n\n" +
-                        "Subject: %s\n" +
-                        "Date: %s\n\n" +
-                        "%s",
+        String message = messageTemplates.render("session.cancelled.tutor",
                 session.getStudent().getFullName(),
                 session.getSubject().getName(),
-                session.getSessionDateTime().format(DATE_TIME_FORMATTER),
-                reason != null ? "Reason: " + reason : "");
+                session.getSessionDateTime(),
+                reasonLine(reason));
 
         metaWhatsAppService.sendTextMessage(session.getTutor().getPhoneNumber(), message);
     }
 
     private void notifyStudentOfCancellation(TutoringSession session, String reason) {
-        String message = String.format(
-                "❌ *Session Cancelled*\n\n" +
-                        "%s has cancelled the session.\n\n" +
-                        "Subject: %s\n" +
-                        "Date: %s\n\n" +
-                        "%s\n\n" +
-                        "_Type BOOK to find another tutor_",
+        String message = messageTemplates.render("session.cancelled.student",
                 session.getTutor().getFullName(),
                 session.getSubject().getName(),
-                session.getSessionDateTime().format(DATE_TIME_FORMATTER),
-                reason != null ? "Reason: " + reason : "");
+                session.getSessionDateTime(),
+                reasonLine(reason));
 
         metaWhatsAppService.sendTextMessage(session.getStudent().getPhoneNumber(), message);
     }
 
     private void requestStudentReview(TutoringSession session) {
-        String message = String.format(
-                "⭐ *Rate Your Session*\n\n" +
-                        "How was your session with %s?\n\n" +
-                        "Subject: %s\n" +
-                        "Date: %s\n\n" +
-                        "Please rate the session from 1-5 stars.\n" +
-                        "_Type RATE %d to leave your review_",
+        String message = messageTemplates.render("session.review-request",
                 session.getTutor().getFullName(),
                 session.getSubject().getName(),
-                session.getSessionDateTime().format(DATE_TIME_FORMATTER),
+                session.getSessionDateTime(),
                 session.getId());
 
         metaWhatsAppService.sendTextMessage(session.getStudent().getPhoneNumber(), message);
     }
 
+    private String reasonLine(String reason) {
+        return reason != null ? messageTemplates.render("session.reason", reason) : "";
+    }
+
     private String generateMeetingLink(TutoringSession session) {
         // In production, integrate with Zoom, Google Meet, or Microsoft Teams API
         // For now, return a placeholder
-        return "https://meet.tutormate.com/session-" + System.currentTimeMillis();
+        return "https://meet.tutormate.com/session-" + idGenerator.nextToken();
     }
 }
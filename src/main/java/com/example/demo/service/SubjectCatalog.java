@@ -0,0 +1,194 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Subject;
+import com.example.demo.repository.SubjectRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory catalog of active subjects.
+ * The catalog is published as immutable, versioned snapshots ordered by
+ * category then name. A conversation records the version it showed the user,
+ * so a numeric choice resolves against exactly that list even if subjects
+ * change in between. The last few versions are kept for that purpose.
+ * Code that writes subjects calls refreshAfterCommit; snapshots are also
+ * rebuilt periodically, to pick up changes made outside the application.
+ * Rebuilds are serialized and each reads the table afresh, so a rebuild that
+ * loaded before a write committed is always followed by the one the write
+ * scheduled, and the newest snapshot never predates a committed write.
+ */
+@Service
+public class SubjectCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubjectCatalog.class);
+
+    @Autowired
+    private SubjectRepository subjectRepository;
+
+    @Value("${catalog.subjects.retained-versions:4}")
+    private int retainedVersions;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final Map<Long, Snapshot> recent = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    /**
+     * The catalog as it is now
+     */
+    public Snapshot current() {
+        return current.get();
+    }
+
+    /**
+     * The catalog as of a version handed out earlier, or null once it has
+     * been retired
+     */
+    public Snapshot snapshot(Long version) {
+        return version != null ? recent.get(version) : null;
+    }
+
+    /**
+     * Look up a subject by id, including inactive ones that are no longer listed
+     */
+    public Optional<Subject> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Subject subject = current().byId.get(id);
+        return subject != null ? Optional.of(subject) : subjectRepository.findById(id);
+    }
+
+    /**
+     * Rebuild once the current transaction commits, or now if there is none
+     */
+    public void refreshAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refresh();
+            }
+        });
+    }
+
+    /**
+     * Load active subjects and publish them as a new version if anything changed
+     */
+    @Scheduled(fixedDelayString = "${catalog.subjects.refresh-interval-ms:600000}",
+            initialDelayString = "${catalog.subjects.refresh-interval-ms:600000}")
+    public synchronized void refresh() {
+        List<Subject> subjects = new ArrayList<>(subjectRepository.findByActiveTrue());
+        subjects.sort(Comparator.comparing(Subject::getCategory).thenComparing(Subject::getName));
+
+        Snapshot previous = current.get();
+        if (previous != null && previous.sameContent(subjects)) {
+            return;
+        }
+
+        long version = previous != null ? previous.version + 1 : 1;
+        Snapshot snapshot = new Snapshot(version, subjects);
+        recent.put(version, snapshot);
+        current.set(snapshot);
+        recent.keySet().removeIf(v -> v <= version - retainedVersions);
+
+        logger.info("Subject catalog version {} published with {} subjects", version, subjects.size());
+    }
+
+    /**
+     * One published version of the catalog.
+     * The Subject instances are detached and shared; treat them as read-only.
+     */
+    public static final class Snapshot {
+
+        private final long version;
+        private final List<Subject> subjects;
+        private final Map<String, List<Subject>> byCategory;
+        private final Map<Long, Subject> byId;
+        private final Map<String, Subject> byName;
+
+        private Snapshot(long version, List<Subject> subjects) {
+            this.version = version;
+            this.subjects = Collections.unmodifiableList(subjects);
+
+            Map<String, List<Subject>> categories = new LinkedHashMap<>();
+            Map<Long, Subject> ids = new HashMap<>();
+            Map<String, Subject> names = new HashMap<>();
+            for (Subject subject : subjects) {
+                categories.computeIfAbsent(subject.getCategory(), c -> new ArrayList<>()).add(subject);
+                ids.put(subject.getId(), subject);
+                names.put(subject.getName().toLowerCase(Locale.ROOT), subject);
+            }
+            categories.replaceAll((category, list) -> Collections.unmodifiableList(list));
+
+            this.byCategory = Collections.unmodifiableMap(categories);
+            this.byId = ids;
+            this.byName = names;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * All active subjects, by category then name; list positions are the
+         * selection numbers shown to users
+         */
+        public List<Subject> getSubjects() {
+            return subjects;
+        }
+
+        public Map<String, List<Subject>> getSubjectsByCategory() {
+            return byCategory;
+        }
+
+        public boolean isEmpty() {
+            return subjects.isEmpty();
+        }
+
+        /**
+         * Subject at a 1-based position, or null if out of range
+         */
+        public Subject atPosition(int position) {
+            return position >= 1 && position <= subjects.size() ? subjects.get(position - 1) : null;
+        }
+
+        public Optional<Subject> findByName(String name) {
+            return Optional.ofNullable(name != null ? byName.get(name.trim().toLowerCase(Locale.ROOT)) : null);
+        }
+
+        private boolean sameContent(List<Subject> other) {
+            if (other.size() != subjects.size()) {
+                return false;
+            }
+            for (int i = 0; i < other.size(); i++) {
+                Subject a = subjects.get(i);
+                Subject b = other.get(i);
+                if (!a.getId().equals(b.getId()) || !a.getName().equals(b.getName())
+                        || !a.getCategory().equals(b.getCategory())
+                        || !Objects.equals(a.getDescription(), b.getDescription())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
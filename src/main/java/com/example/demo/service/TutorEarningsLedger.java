@@ -0,0 +1,215 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TutorMonthTotal;
+import com.example.demo.entity.Payment;
+import com.example.demo.entity.TutorEarnings;
+import com.example.demo.entity.TutorMonthlyEarnings;
+import com.example.demo.repository.PaymentRepository;
+import com.example.demo.repository.TutorEarningsRepository;
+import com.example.demo.repository.TutorMonthlyEarningsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Running earnings per tutor: a lifetime balance and one bucket per month.
+ * PaymentService updates it in the same transaction that marks a payment
+ * paid or refunded, so tier lookups and earnings views read one row instead
+ * of summing payments. Rows are versioned: two concurrent updates for the
+ * same tutor make one of the transactions fail instead of losing an amount.
+ * The payments table stays the source of truth; a nightly job re-derives
+ * the ledger from it and corrects any drift.
+ */
+@Service
+public class TutorEarningsLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(TutorEarningsLedger.class);
+
+    @Autowired
+    private TutorEarningsRepository earningsRepository;
+
+    @Autowired
+    private TutorMonthlyEarningsRepository monthlyEarningsRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private SchedulerLeaseService leaseService;
+
+    private final TransactionTemplate transaction;
+
+    public TutorEarningsLedger(PlatformTransactionManager transactionManager) {
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void init() {
+        // First start with the ledger: build it from existing payments
+        if (earningsRepository.count() == 0 && paymentRepository.existsByStatus(Payment.PaymentStatus.PAID)) {
+            logger.info("Earnings ledger is empty, building it from payments");
+            reconcileAll();
+        }
+    }
+
+    public BigDecimal lifetimeEarnings(Long tutorId) {
+        return earningsRepository.findById(tutorId)
+                .map(TutorEarnings::getLifetimeEarnings)
+                .orElse(BigDecimal.ZERO);
+    }
+
+    public BigDecimal monthEarnings(Long tutorId, YearMonth month) {
+        return monthlyEarningsRepository.findByTutorIdAndPeriod(tutorId, month.toString())
+                .map(TutorMonthlyEarnings::getEarnings)
+                .orElse(BigDecimal.ZERO);
+    }
+
+    /**
+     * Add a payment that has just been marked paid; returns the tutor's new
+     * lifetime earnings. Must run in the transaction that marks the payment.
+     */
+    public BigDecimal recordPaid(Payment payment) {
+        return apply(payment, payment.getTutorEarnings(), 1);
+    }
+
+    /**
+     * Take back a paid payment that is being refunded; returns the tutor's
+     * new lifetime earnings. Must run in the transaction that marks the payment.
+     */
+    public BigDecimal recordRefund(Payment payment) {
+        return apply(payment, payment.getTutorEarnings().negate(), -1);
+    }
+
+    private BigDecimal apply(Payment payment, BigDecimal amount, int sessions) {
+        Long tutorId = payment.getTutor().getId();
+
+        TutorEarnings earnings = earningsRepository.findById(tutorId)
+                .orElseGet(() -> new TutorEarnings(tutorId));
+        earnings.add(amount, sessions);
+        earningsRepository.save(earnings);
+
+        // Bucketed by when the payment was made, so a refund comes off the month it was earned in
+        String period = YearMonth.from(payment.getPaidAt()).toString();
+        TutorMonthlyEarnings month = monthlyEarningsRepository.findByTutorIdAndPeriod(tutorId, period)
+                .orElseGet(() -> new TutorMonthlyEarnings(tutorId, period));
+        month.add(amount, sessions);
+        monthlyEarningsRepository.save(month);
+
+        return earnings.getLifetimeEarnings();
+    }
+
+    /**
+     * Re-derive every tutor's ledger from payments and fix rows that differ
+     * Runs daily at 3:45 AM
+     */
+    @Scheduled(cron = "0 45 3 * * *")
+    public void reconcile() {
+        if (!leaseService.tryAcquire("earnings-ledger-reconcile", Duration.ofHours(1))) {
+            return;
+        }
+        reconcileAll();
+    }
+
+    private void reconcileAll() {
+        LocalDateTime derivedAt = LocalDateTime.now();
+        Map<Long, List<TutorMonthTotal>> derived = new LinkedHashMap<>();
+        for (TutorMonthTotal total : paymentRepository.sumEarningsByTutorAndMonth(Payment.PaymentStatus.PAID)) {
+            derived.computeIfAbsent(total.tutorId(), id -> new ArrayList<>()).add(total);
+        }
+
+        Set<Long> tutorIds = new LinkedHashSet<>(derived.keySet());
+        tutorIds.addAll(earningsRepository.findAllTutorIds());
+
+        int corrected = 0;
+        int conflicts = 0;
+        for (Long tutorId : tutorIds) {
+            List<TutorMonthTotal> months = derived.getOrDefault(tutorId, Collections.emptyList());
+            try {
+                Boolean result = transaction.execute(status -> reconcileTutor(tutorId, months, derivedAt));
+                if (result == null) {
+                    conflicts++;
+                } else if (result) {
+                    corrected++;
+                }
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                conflicts++;
+            }
+        }
+
+        logger.info("Reconciled earnings ledger for {} tutors: {} corrected, {} skipped on conflict",
+                tutorIds.size(), corrected, conflicts);
+    }
+
+    /**
+     * Make one tutor's rows match the derived totals; returns whether anything
+     * changed, or null if a payment for the tutor landed after the totals were
+     * derived, in which case the next run checks again
+     */
+    private Boolean reconcileTutor(Long tutorId, List<TutorMonthTotal> months, LocalDateTime derivedAt) {
+        TutorEarnings earnings = earningsRepository.findById(tutorId).orElseGet(() -> new TutorEarnings(tutorId));
+        if (!earnings.isNew() && earnings.getUpdatedAt().isAfter(derivedAt)) {
+            return null;
+        }
+
+        boolean changed = false;
+
+        Map<String, TutorMonthlyEarnings> buckets = new HashMap<>();
+        for (TutorMonthlyEarnings bucket : monthlyEarningsRepository.findByTutorId(tutorId)) {
+            buckets.put(bucket.getPeriod(), bucket);
+        }
+
+        BigDecimal lifetime = BigDecimal.ZERO;
+        int sessions = 0;
+        for (TutorMonthTotal total : months) {
+            String period = YearMonth.of(total.year(), total.month()).toString();
+            int paidSessions = total.paidSessions().intValue();
+            lifetime = lifetime.add(total.earnings());
+            sessions += paidSessions;
+
+            TutorMonthlyEarnings bucket = buckets.remove(period);
+            if (bucket == null) {
+                bucket = new TutorMonthlyEarnings(tutorId, period);
+            }
+            changed |= correct(bucket, total.earnings(), paidSessions);
+        }
+        // Months with no paid payments left, e.g. everything refunded
+        for (TutorMonthlyEarnings stale : buckets.values()) {
+            changed |= correct(stale, BigDecimal.ZERO, 0);
+        }
+
+        if (earnings.isNew() || earnings.getLifetimeEarnings().compareTo(lifetime) != 0
+                || earnings.getPaidSessions() != sessions) {
+            earnings.setLifetimeEarnings(lifetime);
+            earnings.setPaidSessions(sessions);
+            earnings.setUpdatedAt(LocalDateTime.now());
+            earningsRepository.save(earnings);
+            changed = true;
+        }
+        return changed;
+    }
+
+    private boolean correct(TutorMonthlyEarnings bucket, BigDecimal earnings, int paidSessions) {
+        if (bucket.getId() != null && bucket.getEarnings().compareTo(earnings) == 0
+                && bucket.getPaidSessions() == paidSessions) {
+            return false;
+        }
+        bucket.setEarnings(earnings);
+        bucket.setPaidSessions(paidSessions);
+        bucket.setUpdatedAt(LocalDateTime.now());
+        monthlyEarningsRepository.save(bucket);
+        return true;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of users by phone number and by id.
+ * Every lookup returns its own detached copy, so callers may change it and
+ * save it through UserRepository without other threads seeing the change
+ * before it commits, and a rolled back change never reaches the cache.
+ * Writes go through save, which evicts the user; bulk JPQL updates must call
+ * evict or evictAll themselves.
+ * Every eviction moves the cache to a new generation, and a lookup only
+ * caches what it loaded if the generation did not change while it ran, so a
+ * read that started before a write commits cannot put the old user back.
+ * The cache holds at most max-size users, least recently used out first.
+ */
+@Service
+public class UserCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${users.cache.max-size:10000}")
+    private int maxSize;
+
+    private Map<Long, User> byId;
+    private final Map<String, Long> idByPhoneNumber = new ConcurrentHashMap<>();
+
+    // Changes on every eviction; put and remove both hold the byId lock
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        byId = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, User> eldest) {
+                if (size() <= maxSize) {
+                    return false;
+                }
+                idByPhoneNumber.remove(eldest.getValue().getPhoneNumber(), eldest.getKey());
+                return true;
+            }
+        });
+    }
+
+    public Optional<User> findByPhoneNumber(String phoneNumber) {
+        Long id = idByPhoneNumber.get(phoneNumber);
+        User user = id != null ? byId.get(id) : null;
+        if (user != null) {
+            return Optional.of(user.copy());
+        }
+
+        long loadGeneration = generation.get();
+        Optional<User> loaded = userRepository.findByPhoneNumber(phoneNumber);
+        loaded.ifPresent(u -> put(u, loadGeneration));
+        return loaded;
+    }
+
+    public Optional<User> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+
+        User user = byId.get(id);
+        if (user != null) {
+            return Optional.of(user.copy());
+        }
+
+        long loadGeneration = generation.get();
+        Optional<User> loaded = userRepository.findById(id);
+        loaded.ifPresent(u -> put(u, loadGeneration));
+        return loaded;
+    }
+
+    /**
+     * Save a new or changed user and evict it
+     */
+    public User save(User user) {
+        User saved = userRepository.save(user);
+        evict(saved);
+        return saved;
+    }
+
+    /**
+     * Forget a user now and again once the current transaction completes, so
+     * a reader that loaded it before the commit cannot cache the old state
+     */
+    public void evict(User user) {
+        Long id = user.getId();
+        String phoneNumber = user.getPhoneNumber();
+        remove(id, phoneNumber);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(id, phoneNumber);
+                }
+            });
+        }
+    }
+
+    public void evictAll() {
+        synchronized (byId) {
+            generation.incrementAndGet();
+            byId.clear();
+            idByPhoneNumber.clear();
+        }
+    }
+
+    private void put(User user, long loadGeneration) {
+        // The loaded instance goes to the caller; the cache keeps a copy of its own
+        User cached = user.copy();
+        synchronized (byId) {
+            if (generation.get() != loadGeneration) {
+                // Evicted while loading; what was loaded may predate that write
+                return;
+            }
+            byId.put(cached.getId(), cached);
+            idByPhoneNumber.put(cached.getPhoneNumber(), cached.getId());
+        }
+    }
+
+    private void remove(Long id, String phoneNumber) {
+        synchronized (byId) {
+            generation.incrementAndGet();
+            if (id != null) {
+                User cached = byId.remove(id);
+                if (cached != null) {
+                    idByPhoneNumber.remove(cached.getPhoneNumber(), id);
+                }
+            }
+            if (phoneNumber != null) {
+                idByPhoneNumber.remove(phoneNumber);
+            }
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.UserSession;
+import com.example.demo.repository.UserSessionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind cache of conversation state, keyed by phone number.
+ * Sessions are read from user_sessions once and then served from memory;
+ * changes are marked dirty and written back in batches by a scheduled flush,
+ * so repeated updates to the same session between flushes coalesce into one
+ * write. Idle sessions are evicted after the TTL and the cache is capped at
+ * max-size, oldest interaction first.
+ *
+ * Within an instance, inbound lanes and ConversationLocks ensure one phone
+ * number is processed by one thread at a time, and the flush writes copies
+ * taken under the same lock, so it never sees a message half-applied.
+ * Several instances can run, but each serves its cached copy, so a phone's
+ * messages should reach the same instance (e.g. load balancer affinity on the
+ * sender). If two instances do write the same session, the version column
+ * detects it: the losing write is discarded and the session is reloaded
+ * from the database.
+ */
+@Service
+public class UserSessionStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSessionStore.class);
+
+    @Autowired
+    private UserSessionRepository sessionRepository;
+
+    @Autowired
+    private ConversationLocks conversationLocks;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${conversation.session.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${conversation.session.cache.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    @Value("${conversation.session.flush-batch-size:100}")
+    private int flushBatchSize;
+
+    private final Map<String, UserSession> sessions = new ConcurrentHashMap<>();
+
+    // Sessions changed since the last flush, as a copy of their last committed
+    // state; re-marking a session just replaces its entry
+    private final Map<String, UserSession> dirty = new ConcurrentHashMap<>();
+
+    private Counter conflicts;
+
+    @PostConstruct
+    public void init() {
+        conflicts = Counter.builder("whatsapp.session.write.conflicts")
+                .description("Conversation sessions dropped because the stored row was newer")
+                .register(meterRegistry);
+        Gauge.builder("whatsapp.session.cache.size", sessions, Map::size)
+                .description("Conversation sessions held in memory")
+                .register(meterRegistry);
+        Gauge.builder("whatsapp.session.cache.dirty", dirty, Map::size)
+                .description("Conversation sessions waiting to be written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get the session for a phone number, loading it on first use or
+     * starting a new one. A new session is not written until it is saved.
+     */
+    public UserSession get(String phoneNumber) {
+        UserSession cached = sessions.get(phoneNumber);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Loaded outside the map so the database read does not block other keys
+        UserSession loaded = sessionRepository.findByPhoneNumber(phoneNumber)
+                .orElseGet(() -> new UserSession(phoneNumber));
+        UserSession raced = sessions.putIfAbsent(phoneNumber, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    /**
+     * Schedule the session to be written on the next flush.
+     * Inside a transaction this waits for the outcome: a commit marks the
+     * session dirty. A rollback puts the session back to its last committed
+     * state if that has not been written yet, and otherwise drops it so the
+     * next message reloads it, so a failed message never changes what is
+     * written.
+     */
+    public void save(UserSession session) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            markDirty(session);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    markDirty(session);
+                } else {
+                    discardChanges(session);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drop a cached session without writing it
+     */
+    public void invalidate(String phoneNumber) {
+        sessions.remove(phoneNumber);
+        dirty.remove(phoneNumber);
+    }
+
+    private void markDirty(UserSession session) {
+        // The session may have been evicted while it was being processed
+        sessions.putIfAbsent(session.getPhoneNumber(), session);
+        dirty.put(session.getPhoneNumber(), session.copy());
+    }
+
+    /**
+     * Undo a rolled back message. Runs under the phone's conversation lock,
+     * so no flush is copying the session meanwhile.
+     */
+    private void discardChanges(UserSession session) {
+        String phoneNumber = session.getPhoneNumber();
+        if (sessions.get(phoneNumber) != session) {
+            return; // Already evicted or replaced; the next message loads afresh
+        }
+
+        UserSession committed = dirty.get(phoneNumber);
+        if (committed != null) {
+            // Keeps the id and version, which the flush carries back onto the cached instance
+            session.restore(committed);
+        } else {
+            sessions.remove(phoneNumber, session);
+        }
+    }
+
+    /**
+     * Write dirty sessions back to user_sessions in batches.
+     * Each session is copied under its phone's conversation lock and the copy
+     * is written, so lane threads can keep changing the cached instance. A
+     * session whose message is in progress is left for the next flush.
+     */
+    @Scheduled(fixedDelayString = "${conversation.session.flush-interval-ms:2000}")
+    public synchronized void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        List<PendingWrite> batch = new ArrayList<>(flushBatchSize);
+        for (String phoneNumber : new ArrayList<>(dirty.keySet())) {
+            ReentrantLock lock = conversationLocks.forPhoneNumber(phoneNumber);
+            if (!lock.tryLock()) {
+                continue;
+            }
+            try {
+                UserSession committed = dirty.remove(phoneNumber);
+                if (committed == null) {
+                    continue;
+                }
+                // Between messages the cached session is exactly its committed state
+                UserSession session = sessions.get(phoneNumber);
+                batch.add(session != null
+                        ? new PendingWrite(session, session.copy())
+                        : new PendingWrite(committed, committed));
+            } finally {
+                lock.unlock();
+            }
+
+            if (batch.size() >= flushBatchSize) {
+                writeBatch(batch);
+                batch = new ArrayList<>(flushBatchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+
+    private void writeBatch(List<PendingWrite> batch) {
+        List<UserSession> copies = new ArrayList<>(batch.size());
+        for (PendingWrite write : batch) {
+            copies.add(write.copy);
+        }
+
+        try {
+            List<UserSession> saved = sessionRepository.saveAll(copies);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).written(saved.get(i));
+            }
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Someone else wrote at least one of them; write one by one so the rest still go through
+            for (PendingWrite write : batch) {
+                writeOne(write);
+            }
+        } catch (Exception e) {
+            logger.error("Error writing {} conversation sessions, will retry: {}", batch.size(), e.getMessage(), e);
+            for (PendingWrite write : batch) {
+                write.retry();
+            }
+        }
+    }
+
+    private void writeOne(PendingWrite write) {
+        String phoneNumber = write.session.getPhoneNumber();
+        try {
+            write.written(sessionRepository.save(write.retryCopy()));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            logger.warn("Conversation session for {} was changed by another instance, reloading it", phoneNumber);
+            conflicts.increment();
+            reload(write.session);
+        } catch (Exception e) {
+            logger.error("Error writing conversation session for {}, will retry: {}", phoneNumber, e.getMessage(), e);
+            write.retry();
+        }
+    }
+
+    /**
+     * Replace a session that lost a write with the stored state, under its
+     * phone's lock; if a message is in progress, just drop it so the next
+     * message loads the stored state
+     */
+    private void reload(UserSession stale) {
+        String phoneNumber = stale.getPhoneNumber();
+        ReentrantLock lock = conversationLocks.forPhoneNumber(phoneNumber);
+        if (!lock.tryLock()) {
+            sessions.remove(phoneNumber, stale);
+            return;
+        }
+        try {
+            dirty.remove(phoneNumber);
+            Optional<UserSession> stored = sessionRepository.findByPhoneNumber(phoneNumber);
+            if (stored.isPresent()) {
+                sessions.replace(phoneNumber, stale, stored.get());
+            } else {
+                sessions.remove(phoneNumber, stale);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Evict sessions idle for longer than the TTL, then the least recently
+     * active ones while the cache is over its size limit. Sessions with
+     * unwritten changes are kept until they have been flushed.
+     */
+    @Scheduled(fixedDelayString = "${conversation.session.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ttlMinutes);
+        int evicted = 0;
+
+        for (Map.Entry<String, UserSession> entry : sessions.entrySet()) {
+            UserSession session = entry.getValue();
+            if (session.getLastInteractionAt().isBefore(cutoff) && !dirty.containsKey(entry.getKey())
+                    && sessions.remove(entry.getKey(), session)) {
+                evicted++;
+            }
+        }
+
+        int overflow = sessions.size() - maxSize;
+        if (overflow > 0) {
+            List<UserSession> oldestFirst = new ArrayList<>(sessions.values());
+            oldestFirst.sort(Comparator.comparing(UserSession::getLastInteractionAt));
+            for (UserSession session : oldestFirst) {
+                if (overflow <= 0) {
+                    break;
+                }
+                if (!dirty.containsKey(session.getPhoneNumber())
+                        && sessions.remove(session.getPhoneNumber(), session)) {
+                    overflow--;
+                    evicted++;
+                }
+            }
+        }
+
+        if (evicted > 0) {
+            logger.debug("Evicted {} idle conversation sessions, {} cached", evicted, sessions.size());
+        }
+    }
+
+    /**
+     * A dirty session and the copy of it being written
+     */
+    private final class PendingWrite {
+
+        private final UserSession session;
+        private final UserSession copy;
+        private final Long id;
+        private final long version;
+
+        private PendingWrite(UserSession session, UserSession copy) {
+            this.session = session;
+            this.copy = copy;
+            this.id = copy.getId();
+            this.version = copy.getVersion();
+        }
+
+        /**
+         * The copy as it was taken; a rolled back batch insert leaves an id on it that does not exist
+         */
+        private UserSession retryCopy() {
+            copy.setId(id);
+            copy.setVersion(version);
+            return copy;
+        }
+
+        /**
+         * Mark the session dirty again unless a newer commit already has
+         */
+        private void retry() {
+            dirty.putIfAbsent(session.getPhoneNumber(), retryCopy().copy());
+        }
+
+        /**
+         * Carry the stored id and version back to the cached session
+         */
+        private void written(UserSession saved) {
+            session.setId(saved.getId());
+            session.setVersion(saved.getVersion());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (!dirty.isEmpty()) {
+            logger.warn("{} conversation sessions could not be written on shutdown", dirty.size());
+        }
+    }
+}
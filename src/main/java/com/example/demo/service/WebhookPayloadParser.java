@@ -0,0 +1,315 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.InboundMessage;
+import com.example.demo.dto.StatusUpdate;
+import com.example.demo.dto.WebhookEvents;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser for Meta webhook payloads.
+ * Walks entry / changes / value with a single JsonParser pass over the raw
+ * request bytes and emits typed events, without building a JsonNode tree.
+ * Unknown fields are skipped, and field order inside objects does not matter.
+ */
+@Component
+public class WebhookPayloadParser {
+
+    private final JsonFactory jsonFactory;
+
+    @Autowired
+    public WebhookPayloadParser(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public WebhookEvents parse(byte[] payload) throws IOException {
+        String object = null;
+        List<InboundMessage> messages = new ArrayList<>(1);
+        List<StatusUpdate> statuses = new ArrayList<>(1);
+
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Webhook payload is not a JSON object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+
+                if ("object".equals(field)) {
+                    object = readText(parser);
+                } else if ("entry".equals(field)) {
+                    readArray(parser, () -> readEntry(parser, messages, statuses));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return new WebhookEvents(object, messages, statuses);
+    }
+
+    private void readEntry(JsonParser parser, List<InboundMessage> messages, List<StatusUpdate> statuses)
+            throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+
+            if ("changes".equals(field)) {
+                readArray(parser, () -> readChange(parser, messages, statuses));
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readChange(JsonParser parser, List<InboundMessage> messages, List<StatusUpdate> statuses)
+            throws IOException {
+        // Messages and statuses both live under "value"; the "field" name is not needed to tell them apart
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+
+            if ("value".equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+                readValue(parser, messages, statuses);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readValue(JsonParser parser, List<InboundMessage> messages, List<StatusUpdate> statuses)
+            throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+
+            if ("messages".equals(field)) {
+                readArray(parser, () -> messages.add(readMessage(parser)));
+            } else if ("statuses".equals(field)) {
+                readArray(parser, () -> statuses.add(readStatus(parser)));
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private InboundMessage readMessage(JsonParser parser) throws IOException {
+        String id = null;
+        String from = null;
+        String timestamp = null;
+        String type = null;
+        String body = null;
+        String[] reply = new String[2]; // id, title
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+
+            switch (field) {
+                case "id":
+                    id = readText(parser);
+                    break;
+                case "from":
+                    from = readText(parser);
+                    break;
+                case "timestamp":
+                    timestamp = readText(parser);
+                    break;
+                case "type":
+                    type = readText(parser);
+                    break;
+                case "text":
+                    body = readObjectField(parser, "body");
+                    break;
+                case "interactive":
+                    readInteractive(parser, reply);
+                    break;
+                case "button":
+                    readQuickReplyButton(parser, reply);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        String text;
+        String replyId = null;
+        switch (type != null ? type : "") {
+            case "text":
+                text = body;
+                break;
+            case "interactive":
+            case "button":
+                text = reply[1];
+                replyId = reply[0];
+                break;
+            case "image":
+                text = "[Image received]";
+                break;
+            case "document":
+                text = "[Document received]";
+                break;
+            case "audio":
+                text = "[Audio received]";
+                break;
+            case "video":
+                text = "[Video received]";
+                break;
+            case "location":
+                text = "[Location received]";
+                break;
+            default:
+                text = "[Unsupported message type]";
+        }
+
+        return new InboundMessage(id, from, timestamp, type, text, replyId);
+    }
+
+    /**
+     * Interactive replies carry either button_reply or list_reply, each with an id and title
+     */
+    private void readInteractive(JsonParser parser, String[] reply) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+
+            if (("button_reply".equals(field) || "list_reply".equals(field))
+                    && parser.currentToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String replyField = parser.currentName();
+                    parser.nextToken();
+                    if ("id".equals(replyField)) {
+                        reply[0] = readText(parser);
+                    } else if ("title".equals(replyField)) {
+                        reply[1] = readText(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Quick reply buttons on template messages carry a payload and text
+     */
+    private void readQuickReplyButton(JsonParser parser, String[] reply) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("payload".equals(field)) {
+                reply[0] = readText(parser);
+            } else if ("text".equals(field)) {
+                reply[1] = readText(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private StatusUpdate readStatus(JsonParser parser) throws IOException {
+        String id = null;
+        String recipientId = null;
+        String status = null;
+        String timestamp = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+
+            switch (field) {
+                case "id":
+                    id = readText(parser);
+                    break;
+                case "recipient_id":
+                    recipientId = readText(parser);
+                    break;
+                case "status":
+                    status = readText(parser);
+                    break;
+                case "timestamp":
+                    timestamp = readText(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        return new StatusUpdate(id, recipientId, status, timestamp);
+    }
+
+    /**
+     * Read one scalar field from the current object, skipping everything else
+     */
+    private String readObjectField(JsonParser parser, String name) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+
+        String value = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (name.equals(field)) {
+                value = readText(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Call the reader once per object element of the current array
+     */
+    private void readArray(JsonParser parser, ElementReader reader) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.START_OBJECT) {
+                reader.read();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static String readText(JsonParser parser) throws IOException {
+        if (parser.currentToken().isScalarValue()) {
+            return parser.getValueAsString();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface ElementReader {
+        void read() throws IOException;
+    }
+}
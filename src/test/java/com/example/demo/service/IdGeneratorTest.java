@@ -0,0 +1,97 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 200_000;
+
+    @Test
+    void idsAreUniqueAndIncreasingAcrossThreads() throws Exception {
+        IdGenerator generator = generator(7);
+        Set<Long> ids = ConcurrentHashMap.newKeySet(THREADS * IDS_PER_THREAD);
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    long previous = -1;
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        long id = generator.nextId();
+                        assertTrue(id > previous, "ids must increase within a thread");
+                        ids.add(id);
+                        previous = id;
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(THREADS * IDS_PER_THREAD, ids.size(), "duplicate ids were issued");
+    }
+
+    @Test
+    void nodesNeverIssueTheSameId() {
+        IdGenerator first = generator(1);
+        IdGenerator second = generator(2);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(ids.add(first.nextId()));
+            assertTrue(ids.add(second.nextId()));
+        }
+    }
+
+    @Test
+    void tokensAreUrlSafeAndSortLikeIds() {
+        IdGenerator generator = generator(3);
+        String previous = "";
+        for (int i = 0; i < 10_000; i++) {
+            String token = generator.nextToken();
+            assertEquals(13, token.length());
+            assertTrue(token.matches("[0-9A-Z]+"), token);
+            assertTrue(token.compareTo(previous) > 0, "tokens must sort in issue order");
+            previous = token;
+        }
+        assertEquals("0000000000000", IdGenerator.encode(0));
+        assertTrue(generator.nextReference("PAY").startsWith("PAY-"));
+    }
+
+    @Test
+    void rejectsNodeIdOutOfRange() {
+        IdGenerator generator = new IdGenerator();
+        ReflectionTestUtils.setField(generator, "configuredNodeId", 1024L);
+        assertThrows(IllegalStateException.class, generator::init);
+    }
+
+    private static IdGenerator generator(long nodeId) {
+        IdGenerator generator = new IdGenerator();
+        ReflectionTestUtils.setField(generator, "configuredNodeId", nodeId);
+        generator.init();
+        return generator;
+    }
+}
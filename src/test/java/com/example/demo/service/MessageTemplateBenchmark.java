@@ -0,0 +1,92 @@
+package com.example.demo.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiled templates against the String.format calls they replaced, on the
+ * tutor list row (money, rating) and the booking confirmation.
+ * Run with: java -cp target/test-classes:<test classpath> com.example.demo.service.MessageTemplateBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageTemplateBenchmark {
+
+    private static final String CONFIRM_FORMAT = "📋 *Confirm Your Booking*\n\n" +
+            "Tutor: %s\nSubject: %s\nDate/Time: %s\nDuration: %d minutes\nType: %s\nPrice: R%.2f\n\n" +
+            "Confirm this booking?";
+
+    private MessageTemplate confirm;
+    private MessageTemplate row;
+    private MessageTemplate rating;
+
+    private final StringBuilder buffer = new StringBuilder(512);
+    private final BigDecimal price = new BigDecimal("187.50");
+    private final BigDecimal hourlyRate = new BigDecimal("250.00");
+    private final Double averageRating = 4.25;
+
+    @Setup
+    public void setUp() {
+        confirm = MessageTemplate.compile("conversation.booking.confirm",
+                "📋 *Confirm Your Booking*\n\nTutor: {0}\nSubject: {1}\nDate/Time: {2}\n" +
+                        "Duration: {3} minutes\nType: {4}\nPrice: R{5,money}\n\nConfirm this booking?",
+                Locale.ENGLISH);
+        row = MessageTemplate.compile("conversation.find.row",
+                "{0}. {1}\n   💰 R{2,whole}/hr • {3}\n   {4}\n\n", Locale.ENGLISH);
+        rating = MessageTemplate.compile("conversation.rating", "{0,rating}⭐", Locale.ENGLISH);
+    }
+
+    @Benchmark
+    public String confirmTemplate() {
+        buffer.setLength(0);
+        confirm.appendTo(buffer, "Thandi Nkosi", "Mathematics", "2026-02-15 14:00", 45, "ONLINE", price);
+        return buffer.toString();
+    }
+
+    @Benchmark
+    public String confirmFormat() {
+        return String.format(CONFIRM_FORMAT, "Thandi Nkosi", "Mathematics", "2026-02-15 14:00", 45, "ONLINE",
+                price.setScale(2, RoundingMode.HALF_UP));
+    }
+
+    @Benchmark
+    public String tutorRowTemplate() {
+        buffer.setLength(0);
+        rating.appendTo(buffer, averageRating);
+        String stars = buffer.toString();
+        buffer.setLength(0);
+        row.appendTo(buffer, 1, "Thandi Nkosi", hourlyRate, stars, "BSc Mathematics, 5 years");
+        return buffer.toString();
+    }
+
+    @Benchmark
+    public String tutorRowFormat() {
+        String stars = String.format("%.1f⭐", averageRating);
+        return String.format("%d. %s\n   💰 R%.0f/hr • %s\n   %s\n\n", 1, "Thandi Nkosi", hourlyRate, stars,
+                "BSc Mathematics, 5 years");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MessageTemplateBenchmark.class.getSimpleName()).build()).run();
+    }
+}
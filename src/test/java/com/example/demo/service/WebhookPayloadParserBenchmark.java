@@ -0,0 +1,203 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.InboundMessage;
+import com.example.demo.dto.StatusUpdate;
+import com.example.demo.dto.WebhookEvents;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The streaming WebhookPayloadParser against an ObjectMapper.readTree walk
+ * producing the same events, on a typed message, a button reply and a
+ * delivery status update as Meta sends them, and on a batched delivery of
+ * several entries whose changes carry several messages or statuses each.
+ * Run with: java -cp target/test-classes:<test classpath> com.example.demo.service.WebhookPayloadParserBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebhookPayloadParserBenchmark {
+
+    private static final String ENVELOPE = "{\"object\":\"whatsapp_business_account\",\"entry\":[{\"id\":\"1029384756\"," +
+            "\"changes\":[{\"value\":{\"messaging_product\":\"whatsapp\",\"metadata\":{\"display_phone_number\":" +
+            "\"15550001111\",\"phone_number_id\":\"106540352242922\"},%s},\"field\":\"%s\"}]}]}";
+
+    private static final String TEXT = String.format(ENVELOPE,
+            "\"contacts\":[{\"profile\":{\"name\":\"Thandi\"},\"wa_id\":\"27820001111\"}]," +
+                    "\"messages\":[{\"from\":\"27820001111\",\"id\":\"wamid.HBgLMjc4MjAwMDExMTEVAgASGBQzQTg\"," +
+                    "\"timestamp\":\"1760713200\",\"text\":{\"body\":\"book maths\"},\"type\":\"text\"}]",
+            "messages");
+
+    private static final String BUTTON = String.format(ENVELOPE,
+            "\"contacts\":[{\"profile\":{\"name\":\"Thandi\"},\"wa_id\":\"27820001111\"}]," +
+                    "\"messages\":[{\"context\":{\"from\":\"15550001111\",\"id\":\"wamid.HBgLMjc4MjAwMDExMTEVAgARGBI\"}," +
+                    "\"from\":\"27820001111\",\"id\":\"wamid.HBgLMjc4MjAwMDExMTEVAgASGBQzQTk\"," +
+                    "\"timestamp\":\"1760713260\",\"type\":\"interactive\",\"interactive\":{\"type\":\"button_reply\"," +
+                    "\"button_reply\":{\"id\":\"cmd:book\",\"title\":\"📚 Book a Session\"}}}]",
+            "messages");
+
+    private static final String STATUS = String.format(ENVELOPE,
+            "\"statuses\":[{\"id\":\"wamid.HBgLMjc4MjAwMDExMTEVAgARGBI\",\"status\":\"delivered\"," +
+                    "\"timestamp\":\"1760713205\",\"recipient_id\":\"27820001111\",\"conversation\":{\"id\":" +
+                    "\"c0ffee\",\"origin\":{\"type\":\"service\"}},\"pricing\":{\"billable\":true," +
+                    "\"pricing_model\":\"CBP\",\"category\":\"service\"}}]",
+            "messages");
+
+    // A batched delivery: several business accounts' entries, each with a message change and a status change
+    private static final String BATCH = batch(4, 2, 5, 5);
+
+    @Param({"text", "button", "status", "batch"})
+    public String kind;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private WebhookPayloadParser parser;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        parser = new WebhookPayloadParser(objectMapper);
+        String json;
+        switch (kind) {
+            case "text":
+                json = TEXT;
+                break;
+            case "button":
+                json = BUTTON;
+                break;
+            case "status":
+                json = STATUS;
+                break;
+            default:
+                json = BATCH;
+        }
+        payload = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public WebhookEvents streaming() throws IOException {
+        return parser.parse(payload);
+    }
+
+    @Benchmark
+    public WebhookEvents tree() throws IOException {
+        JsonNode root = objectMapper.readTree(payload);
+        List<InboundMessage> messages = new ArrayList<>(1);
+        List<StatusUpdate> statuses = new ArrayList<>(1);
+
+        for (JsonNode entry : root.path("entry")) {
+            for (JsonNode change : entry.path("changes")) {
+                JsonNode value = change.path("value");
+                for (JsonNode message : value.path("messages")) {
+                    messages.add(treeMessage(message));
+                }
+                for (JsonNode status : value.path("statuses")) {
+                    statuses.add(new StatusUpdate(status.path("id").asText(), status.path("recipient_id").asText(),
+                            status.path("status").asText(), status.path("timestamp").asText()));
+                }
+            }
+        }
+        return new WebhookEvents(root.path("object").asText(), messages, statuses);
+    }
+
+    private static InboundMessage treeMessage(JsonNode message) {
+        String type = message.path("type").asText();
+        String text;
+        String replyId = null;
+        switch (type) {
+            case "text":
+                text = message.path("text").path("body").asText();
+                break;
+            case "interactive":
+                JsonNode interactive = message.path("interactive");
+                JsonNode reply = interactive.has("button_reply")
+                        ? interactive.path("button_reply") : interactive.path("list_reply");
+                text = reply.path("title").asText();
+                replyId = reply.path("id").asText();
+                break;
+            case "button":
+                text = message.path("button").path("text").asText();
+                replyId = message.path("button").path("payload").asText();
+                break;
+            default:
+                text = "[Unsupported message type]";
+        }
+        return new InboundMessage(message.path("id").asText(), message.path("from").asText(),
+                message.path("timestamp").asText(), type, text, replyId);
+    }
+
+    /**
+     * entries x changesPerEntry changes, alternating between a change with
+     * messagesPerChange messages (typed text and list replies) and one with
+     * statusesPerChange statuses
+     */
+    private static String batch(int entries, int changesPerEntry, int messagesPerChange, int statusesPerChange) {
+        StringBuilder json = new StringBuilder("{\"object\":\"whatsapp_business_account\",\"entry\":[");
+        int sequence = 0;
+        for (int e = 0; e < entries; e++) {
+            json.append(e > 0 ? "," : "").append("{\"id\":\"10293847").append(e).append("\",\"changes\":[");
+            for (int c = 0; c < changesPerEntry; c++) {
+                json.append(c > 0 ? "," : "").append("{\"value\":{\"messaging_product\":\"whatsapp\",")
+                        .append("\"metadata\":{\"display_phone_number\":\"15550001111\",")
+                        .append("\"phone_number_id\":\"10654035224292").append(e).append("\"},");
+                if (c % 2 == 0) {
+                    json.append("\"contacts\":[{\"profile\":{\"name\":\"Thandi\"},\"wa_id\":\"27820001111\"}],")
+                            .append("\"messages\":[");
+                    for (int m = 0; m < messagesPerChange; m++, sequence++) {
+                        json.append(m > 0 ? "," : "").append("{\"from\":\"2782000").append(1000 + sequence)
+                                .append("\",\"id\":\"wamid.HBgLMjc4MjAwMDExMTEVAgASGBQz").append(sequence)
+                                .append("\",\"timestamp\":\"17607132").append(sequence % 100).append("\",");
+                        if (m % 2 == 0) {
+                            json.append("\"text\":{\"body\":\"book maths ").append(sequence)
+                                    .append("\"},\"type\":\"text\"}");
+                        } else {
+                            json.append("\"type\":\"interactive\",\"interactive\":{\"type\":\"list_reply\",")
+                                    .append("\"list_reply\":{\"id\":\"subject:").append(sequence)
+                                    .append("\",\"title\":\"Mathematics\",\"description\":\"Grade 10-12\"}}}");
+                        }
+                    }
+                } else {
+                    json.append("\"statuses\":[");
+                    for (int t = 0; t < statusesPerChange; t++, sequence++) {
+                        json.append(t > 0 ? "," : "").append("{\"id\":\"wamid.HBgLMjc4MjAwMDExMTEVAgARGBI")
+                                .append(sequence).append("\",\"status\":\"").append(t % 2 == 0 ? "delivered" : "read")
+                                .append("\",\"timestamp\":\"17607132").append(sequence % 100)
+                                .append("\",\"recipient_id\":\"2782000").append(1000 + sequence)
+                                .append("\",\"conversation\":{\"id\":\"c0ffee\",\"origin\":{\"type\":\"service\"}},")
+                                .append("\"pricing\":{\"billable\":true,\"pricing_model\":\"CBP\",")
+                                .append("\"category\":\"service\"}}");
+                    }
+                }
+                json.append("]},\"field\":\"messages\"}");
+            }
+            json.append("]}");
+        }
+        return json.append("]}").toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(WebhookPayloadParserBenchmark.class.getSimpleName()).build()).run();
+    }
+}